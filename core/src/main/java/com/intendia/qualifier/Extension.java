@@ -5,8 +5,14 @@ import java.util.Objects;
 public interface Extension<T> {
     String getKey();
 
+    /** The dense ordinal of this extension key, see {@link ExtensionRegistry}. */
+    default int getOrdinal() { return ExtensionRegistry.ordinal(getKey()); }
+
     default boolean isAnonymous() { return false; }
 
+    /** Returns a handle resolving this extension by its ordinal, with a fast path for generated qualifiers. */
+    default PreparedExtension<T> prepare() { return new PreparedExtension<>(this); }
+
     @SuppressWarnings("unchecked")
     default <V extends T> Extension<V> as() { return (Extension<V>) this; }
 
@@ -17,16 +23,22 @@ public interface Extension<T> {
 
 class NamedExtension<T> implements Extension<T> {
     private final String key;
+    private final int ordinal;
 
-    NamedExtension(String key) { this.key = key.intern(); }
+    NamedExtension(String key) {
+        this.key = key.intern();
+        this.ordinal = ExtensionRegistry.ordinal(this.key);
+    }
 
     @Override public String getKey() { return key; }
 
+    @Override public int getOrdinal() { return ordinal; }
+
     @Override public boolean equals(Object o) {
         return this == o || o instanceof NamedExtension && equals((NamedExtension<?>) o);
     }
 
-    public boolean equals(NamedExtension<?> o) { return Objects.equals(key, o.key); }
+    public boolean equals(NamedExtension<?> o) { return ordinal == o.ordinal; }
 
     @Override public int hashCode() { return Objects.hash(key); }
 
@@ -36,5 +48,7 @@ class NamedExtension<T> implements Extension<T> {
 class AnonymousExtension<T> implements Extension<T> {
     @Override public String getKey() { throw new UnsupportedOperationException("anonymous extension"); }
 
+    @Override public int getOrdinal() { throw new UnsupportedOperationException("anonymous extension"); }
+
     @Override public boolean isAnonymous() { return true; }
 }
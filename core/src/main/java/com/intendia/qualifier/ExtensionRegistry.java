@@ -0,0 +1,88 @@
+package com.intendia.qualifier;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+
+/**
+ * Global registry of extension keys. Each key gets a dense ordinal the first time it is registered, so metadata
+ * implementations can resolve extensions using an array index instead of hashing the key string.
+ */
+public final class ExtensionRegistry {
+    private static final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private static volatile String[] keys = new String[64];
+    private static int size = 0;
+
+    private ExtensionRegistry() {}
+
+    /** Returns the ordinal of the key, registering it if this is the first time it is seen. */
+    public static int ordinal(String key) {
+        Integer ordinal = ordinals.get(key);
+        return ordinal != null ? ordinal : register(key);
+    }
+
+    /** Returns the ordinal of the key or -1 if the key has never been registered. */
+    public static int ordinalOf(String key) {
+        Integer ordinal = ordinals.get(key);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /** Returns the key registered with the ordinal. */
+    public static String key(int ordinal) {
+        String[] keys = ExtensionRegistry.keys;
+        String key = ordinal >= 0 && ordinal < keys.length ? keys[ordinal] : null;
+        if (key == null) throw new IllegalArgumentException("unregistered extension ordinal " + ordinal);
+        return key;
+    }
+
+    /** Returns the number of registered keys, all ordinals are lower than this value. */
+    public static synchronized int size() { return size; }
+
+    /** Returns the keys of the first array followed by the keys of the second one not already included. */
+    static String[] union(String[] keys, String[] more) {
+        if (more.length == 0) return keys;
+        if (keys.length == 0) return more;
+        Set<String> out = new LinkedHashSet<>(Arrays.asList(keys));
+        out.addAll(Arrays.asList(more));
+        return out.size() == keys.length ? keys : out.toArray(Metadata.NO_KEYS);
+    }
+
+    private static synchronized int register(String key) {
+        Integer ordinal = ordinals.get(key);
+        if (ordinal != null) return ordinal;
+        String[] keys = ExtensionRegistry.keys;
+        if (size == keys.length) keys = Arrays.copyOf(keys, size * 2);
+        keys[size] = key.intern();
+        ExtensionRegistry.keys = keys; // publish before the ordinal becomes visible
+        ordinals.put(key, size);
+        return size++;
+    }
+}
+
+/**
+ * Cached union of some own keys with the keys of a parent metadata, recomputed only when the own keys are replaced or
+ * the parent returns a different keys array, so parents caching their keys make {@link Metadata#keys()} allocation
+ * free.
+ */
+final class MergedKeys {
+    private volatile String[][] cache; // { own, parent keys, merged }
+
+    MergedKeys(String[] own) { this.cache = new String[][] { own, null, own }; }
+
+    String[] own() { return cache[0]; }
+
+    void own(String[] own) { this.cache = new String[][] { own, null, own }; }
+
+    String[] get(@Nullable Metadata parent) {
+        String[][] cache = this.cache;
+        if (parent == null) return cache[0];
+        String[] parentKeys = parent.keys();
+        if (parentKeys == cache[1]) return cache[2];
+        this.cache = cache = new String[][] { cache[0], parentKeys, ExtensionRegistry.union(cache[0], parentKeys) };
+        return cache[2];
+    }
+}
+
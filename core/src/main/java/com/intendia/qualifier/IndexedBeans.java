@@ -0,0 +1,129 @@
+package com.intendia.qualifier;
+
+import static java.util.Collections.newSetFromMap;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+
+/**
+ * Collection of beans (by identity) maintaining {@link PropertyIndex secondary indexes} by property values. Indexes
+ * are kept up to date while the beans are added, removed or changed through this collection, either setting a
+ * property with {@link #set} (only the indexes depending on its path are updated) or applying any change with
+ * {@link #update}. Changes made directly on the beans are not visible to the indexes. Not thread safe.
+ */
+public final class IndexedBeans<T> extends AbstractCollection<T> {
+    private final Set<T> beans = newSetFromMap(new IdentityHashMap<>());
+    private final List<PropertyIndex<T>> indexes = new ArrayList<>();
+
+    public IndexedBeans() {}
+
+    public IndexedBeans(Collection<? extends T> beans) { addAll(beans); }
+
+    /** Adds and builds a hash index for equality lookups over the properties. */
+    @SafeVarargs public final PropertyIndex<T> hashIndex(PropertyQualifier<T, ?>... properties) {
+        return index(new PropertyIndex<>(Arrays.asList(properties), false));
+    }
+
+    /** Adds and builds a sorted index for equality and range lookups over the properties. */
+    @SafeVarargs public final PropertyIndex<T> sortedIndex(PropertyQualifier<T, ?>... properties) {
+        return index(new PropertyIndex<>(Arrays.asList(properties), true));
+    }
+
+    /** Returns the first index over exactly the properties, preferring sorted ones if requested, or null if none. */
+    public @Nullable PropertyIndex<T> findIndex(List<? extends PropertyQualifier<T, ?>> properties, boolean sorted) {
+        PropertyIndex<T> found = null;
+        for (PropertyIndex<T> index : indexes) {
+            if (!index.isOver(properties)) continue;
+            if (index.isSorted() || !sorted) return index;
+            if (found == null) found = index;
+        }
+        return sorted ? null : found;
+    }
+
+    public List<PropertyIndex<T>> getIndexes() { return unmodifiableList(indexes); }
+
+    public boolean dropIndex(PropertyIndex<T> index) { return indexes.remove(index); }
+
+    @Override public boolean add(T bean) {
+        if (!beans.add(bean)) return false;
+        for (PropertyIndex<T> index : indexes) index.add(bean);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override public boolean remove(Object bean) {
+        if (!beans.remove(bean)) return false;
+        for (PropertyIndex<T> index : indexes) index.remove((T) bean);
+        return true;
+    }
+
+    @Override public boolean contains(Object o) { return beans.contains(o); }
+
+    @Override public void clear() {
+        beans.clear();
+        for (PropertyIndex<T> index : indexes) index.clear();
+    }
+
+    @Override public int size() { return beans.size(); }
+
+    @Override public Iterator<T> iterator() {
+        Iterator<T> it = beans.iterator();
+        return new Iterator<T>() {
+            @Nullable T last;
+
+            @Override public boolean hasNext() { return it.hasNext(); }
+
+            @Override public T next() { return last = it.next(); }
+
+            @Override public void remove() {
+                it.remove();
+                for (PropertyIndex<T> index : indexes) index.remove(last);
+            }
+        };
+    }
+
+    /** Sets the property of a bean of this collection using its setter, re-keying the indexes depending on it. */
+    public <V> void set(T bean, PropertyQualifier<T, V> property, @Nullable V value) {
+        BiConsumer<T, V> setter = property.getSetter();
+        if (!beans.contains(bean)) { setter.accept(bean, value); return; }
+        List<PropertyIndex<T>> affected = new ArrayList<>();
+        for (PropertyIndex<T> index : indexes) if (index.dependsOn(property)) affected.add(index);
+        change(bean, affected, b -> setter.accept(b, value));
+    }
+
+    /** Applies any change to a bean of this collection, re-keying all the indexes. */
+    public void update(T bean, Consumer<? super T> change) {
+        if (!beans.contains(bean)) change.accept(bean);
+        else change(bean, indexes, change);
+    }
+
+    private void change(T bean, List<PropertyIndex<T>> affected, Consumer<? super T> change) {
+        Object[] keys = new Object[affected.size()];
+        for (int i = 0; i < keys.length; i++) keys[i] = affected.get(i).key(bean);
+        try {
+            change.accept(bean);
+        } finally {
+            for (int i = 0; i < keys.length; i++) {
+                PropertyIndex<T> index = affected.get(i);
+                index.remove(bean, keys[i]);
+                index.add(bean);
+            }
+        }
+    }
+
+    private PropertyIndex<T> index(PropertyIndex<T> index) {
+        for (T bean : beans) index.add(bean);
+        indexes.add(index);
+        return index;
+    }
+}
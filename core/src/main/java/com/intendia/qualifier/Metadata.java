@@ -3,9 +3,11 @@ package com.intendia.qualifier;
 import static java.util.Objects.requireNonNull;
 
 import com.intendia.qualifier.Metadata.Mutadata;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -16,12 +18,35 @@ import javax.annotation.Nullable;
 public interface Metadata {
     String METADATA_MUTATOR_KEY = "metadata.mutator";
     Extension<Mutadata> METADATA_MUTATOR = Extension.key(METADATA_MUTATOR_KEY);
+    String[] NO_KEYS = new String[0];
 
     @Nullable Object data(String key);
 
+    /**
+     * Ordinal based lookup (see {@link Extension#getOrdinal()}). Implementations able to index its values by ordinal
+     * should override this method, by default it falls back to the string based lookup.
+     */
+    default @Nullable Object data(int ordinal) {
+        return data(ExtensionRegistry.key(ordinal));
+    }
+
     @SuppressWarnings("unchecked")
     default @Nullable <T> T data(Extension<T> key) {
-        return (T) data(key.getKey());
+        return (T) data(key.getOrdinal());
+    }
+
+    /**
+     * Returns the keys resolvable by this metadata, including the inherited ones. Functional metadata cannot enumerate
+     * its keys and returns none, so implementations should override this method to be fully {@link #freeze()}'able.
+     */
+    default String[] keys() { return NO_KEYS; }
+
+    /** Performs the action for each non-null entry of this metadata in a single pass, see {@link #keys()}. */
+    default void forEach(BiConsumer<String, Object> action) {
+        for (String key : keys()) {
+            Object value = data(key);
+            if (value != null) action.accept(key, value);
+        }
     }
 
     default <T> T data(Extension<T> key, T or) {
@@ -47,6 +72,39 @@ public interface Metadata {
         return this instanceof Mutadata ? (Mutadata) this : requireNonNull(data(METADATA_MUTATOR), "non mutable");
     }
 
+    /**
+     * Returns a typed view of this metadata created by the factory. Implementations reused across calls (generated
+     * and frozen qualifiers) cache the view per type, so stateless factories allocate nothing in steady state.
+     */
+    default <Q> Q view(Class<Q> type, Function<? super Metadata, ? extends Q> factory) { return factory.apply(this); }
+
+    /**
+     * Resolves all the {@link #keys()} of this metadata (walking its overrides and mixins) into a flat immutable
+     * snapshot, so later reads are answered with an array access no matter how deep the original chain was.
+     */
+    default Metadata freeze() { return new FrozenMetadata(this); }
+
+    /**
+     * Returns an immutable layer overriding the key on this metadata. The layer shares this metadata as parent, and
+     * calling {@code with} on a layer returns a sibling layer copying only its few overridden entries, so overrides are
+     * cheap to create and safe to share between threads.
+     */
+    default Metadata with(String key, @Nullable Object value) {
+        return new LayerMetadata(this, ExtensionRegistry.ordinal(key), value);
+    }
+
+    default <V> Metadata with(Extension<V> key, @Nullable V value) { return with(key.getKey(), value); }
+
+    /**
+     * Returns a layer resolving its values first from the metadata currently provided by the scope for this metadata,
+     * falling back to this metadata for the keys missing in the scope. The scope is evaluated on each read, so it can
+     * be installed once (e.g. {@code source -> REQUEST_OVERRIDES.get().get(source)} using a thread-local) and changing
+     * the per-request overrides only requires switching the scope context. Null scope values are not overrides.
+     */
+    default Metadata scoped(Function<? super Metadata, ? extends Metadata> scope) {
+        return new ScopedMetadata(this, scope);
+    }
+
     /** Creates a new mutable metadata to allow overrides values on this metadata. */
     default Mutadata override() { return create(this);}
 
@@ -60,7 +118,13 @@ public interface Metadata {
 
     static Mutadata create() { return create(null);}
 
-    static Mutadata create(@Nullable Metadata parent) { return new HashMutadata(parent);}
+    static Mutadata create(@Nullable Metadata parent) { return new ArrayMutadata(parent);}
+
+    /**
+     * Creates a thread-safe mutable metadata. Writes copy its entries into a new immutable snapshot, so readers never
+     * lock and always see a consistent set of values. Intended for overrides shared by many threads and rarely updated.
+     */
+    static Mutadata createConcurrent(@Nullable Metadata parent) { return new ConcurrentMutadata(parent);}
 
     interface Mutadata extends Metadata {
 
@@ -79,8 +143,12 @@ public interface Metadata {
 }
 
 class HashMutadata implements Mutadata {
+    private static final Object[] EMPTY = new Object[0];
+    private static final Object NULL = new Object();
     final @Nullable Metadata parent;
-    final Map<String, Object> data = new HashMap<>();
+    /** Values indexed by extension ordinal, {@code null} if absent or {@link #NULL} if explicitly set to null. */
+    Object[] data = EMPTY;
+    private final MergedKeys keys = new MergedKeys(NO_KEYS);
 
     HashMutadata(@Nullable Metadata parent) {
         this.parent = parent;
@@ -88,16 +156,412 @@ class HashMutadata implements Mutadata {
 
     @Override public @Nullable Object data(@Nonnull String key) {
         if (METADATA_MUTATOR_KEY.equals(key)) return this;
-        return parent == null || data.containsKey(key) ? data.get(key) : parent.data(key);
+        int ordinal = ExtensionRegistry.ordinalOf(key);
+        if (ordinal >= 0) return data(ordinal);
+        return parent == null ? null : parent.data(key);
+    }
+
+    @Override public @Nullable Object data(int ordinal) {
+        if (ordinal == METADATA_MUTATOR.getOrdinal()) return this;
+        Object value = ordinal < data.length ? data[ordinal] : null;
+        if (value != null) return value == NULL ? null : value;
+        return parent == null || hides(ordinal) ? null : parent.data(ordinal);
+    }
+
+    @Override public String[] keys() { return keys.get(parent); }
+
+    @Override public void forEach(BiConsumer<String, Object> action) {
+        Object[] data = this.data;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] != null && data[i] != NULL) action.accept(ExtensionRegistry.key(i), data[i]);
+        }
+        if (parent != null) parent.forEach((key, value) -> {
+            int ordinal = ExtensionRegistry.ordinalOf(key);
+            if ((ordinal < 0 || ordinal >= data.length || data[ordinal] == null) && !hides(ordinal)) {
+                action.accept(key, value);
+            }
+        });
+    }
+
+    /** Whether the parent value is hidden because this overrides its boxed accessor, see Defaults#boxedAccessor. */
+    private boolean hides(int ordinal) {
+        int boxed = ordinal < 0 ? -1 : Defaults.boxedAccessor(ordinal);
+        return boxed >= 0 && boxed < data.length && data[boxed] != null;
+    }
+
+    @Override public Mutadata put(String key, @Nullable Object value) {
+        int ordinal = ExtensionRegistry.ordinal(key);
+        if (ordinal >= data.length) data = Arrays.copyOf(data, ordinal + 1);
+        boolean added = data[ordinal] == null;
+        data[ordinal] = value == null ? NULL : value;
+        if (added) updateKeys();
+        return this;
+    }
+
+    @Override public Mutadata remove(String key) {
+        int ordinal = ExtensionRegistry.ordinalOf(key);
+        if (ordinal >= 0 && ordinal < data.length && data[ordinal] != null) {
+            data[ordinal] = null;
+            updateKeys();
+        }
+        return this;
+    }
+
+    /** Own keys are only recomputed when an entry is added or removed, so {@link #keys()} does not allocate. */
+    private void updateKeys() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < data.length; i++) if (data[i] != null) keys.add(ExtensionRegistry.key(i));
+        this.keys.own(keys.toArray(NO_KEYS));
+    }
+}
+
+/**
+ * Mutadata for a few keys, its entries are kept in parallel ordinal/value arrays using a linear scan, and moved into a
+ * {@link HashMutadata} once it grows past {@link #THRESHOLD} entries.
+ */
+class ArrayMutadata implements Mutadata {
+    static final int THRESHOLD = 8;
+    private static final Object NULL = new Object();
+    final @Nullable Metadata parent;
+    private int[] ordinals = new int[4];
+    private Object[] values = new Object[4];
+    private int size = 0;
+    private @Nullable HashMutadata grown;
+    private final MergedKeys keys = new MergedKeys(NO_KEYS);
+
+    ArrayMutadata(@Nullable Metadata parent) {
+        this.parent = parent;
+    }
+
+    @Override public @Nullable Object data(@Nonnull String key) {
+        if (METADATA_MUTATOR_KEY.equals(key)) return this;
+        if (grown != null) return grown.data(key);
+        int ordinal = ExtensionRegistry.ordinalOf(key);
+        if (ordinal >= 0) return data(ordinal);
+        return parent == null ? null : parent.data(key);
+    }
+
+    @Override public @Nullable Object data(int ordinal) {
+        if (ordinal == METADATA_MUTATOR.getOrdinal()) return this;
+        if (grown != null) return grown.data(ordinal);
+        int index = indexOf(ordinal);
+        if (index >= 0) return values[index] == NULL ? null : values[index];
+        return parent == null || hides(ordinal) ? null : parent.data(ordinal);
+    }
+
+    @Override public String[] keys() { return grown != null ? grown.keys() : keys.get(parent); }
+
+    @Override public void forEach(BiConsumer<String, Object> action) {
+        if (grown != null) { grown.forEach(action); return; }
+        for (int i = 0; i < size; i++) {
+            if (values[i] != NULL) action.accept(ExtensionRegistry.key(ordinals[i]), values[i]);
+        }
+        if (parent != null) parent.forEach((key, value) -> {
+            int ordinal = ExtensionRegistry.ordinalOf(key);
+            if (ordinal < 0 || indexOf(ordinal) < 0 && !hides(ordinal)) action.accept(key, value);
+        });
+    }
+
+    @Override public Mutadata put(String key, @Nullable Object value) {
+        if (grown != null) { grown.put(key, value); return this; }
+        int ordinal = ExtensionRegistry.ordinal(key);
+        int index = indexOf(ordinal);
+        if (index >= 0) {
+            values[index] = value == null ? NULL : value;
+        } else if (size < THRESHOLD) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            ordinals[size] = ordinal;
+            values[size++] = value == null ? NULL : value;
+            updateKeys();
+        } else {
+            HashMutadata grown = new HashMutadata(parent);
+            for (int i = 0; i < size; i++) grown.put(ExtensionRegistry.key(ordinals[i]), unmask(values[i]));
+            grown.put(key, value);
+            this.grown = grown;
+        }
+        return this;
+    }
+
+    @Override public Mutadata remove(String key) {
+        if (grown != null) { grown.remove(key); return this; }
+        int ordinal = ExtensionRegistry.ordinalOf(key);
+        int index = ordinal < 0 ? -1 : indexOf(ordinal);
+        if (index >= 0) {
+            size--;
+            System.arraycopy(ordinals, index + 1, ordinals, index, size - index);
+            System.arraycopy(values, index + 1, values, index, size - index);
+            values[size] = null;
+            updateKeys();
+        }
+        return this;
+    }
+
+    private void updateKeys() {
+        String[] own = new String[size];
+        for (int i = 0; i < size; i++) own[i] = ExtensionRegistry.key(ordinals[i]);
+        keys.own(own);
+    }
+
+    private int indexOf(int ordinal) {
+        for (int i = 0; i < size; i++) if (ordinals[i] == ordinal) return i;
+        return -1;
+    }
+
+    private boolean hides(int ordinal) {
+        int boxed = Defaults.boxedAccessor(ordinal);
+        return boxed >= 0 && indexOf(boxed) >= 0;
+    }
+
+    private static @Nullable Object unmask(Object value) { return value == NULL ? null : value; }
+}
+
+/** Copy-on-write mutadata, reads are a volatile read of an immutable {@link LayerMetadata}. */
+class ConcurrentMutadata implements Mutadata {
+    private static final Metadata NONE = key -> null;
+    private volatile LayerMetadata state;
+
+    ConcurrentMutadata(@Nullable Metadata parent) {
+        this.state = new LayerMetadata(parent == null ? NONE : parent, new int[0], new Object[0]);
+    }
+
+    @Override public @Nullable Object data(@Nonnull String key) {
+        return METADATA_MUTATOR_KEY.equals(key) ? this : state.data(key);
+    }
+
+    @Override public @Nullable Object data(int ordinal) {
+        return ordinal == METADATA_MUTATOR.getOrdinal() ? this : state.data(ordinal);
     }
 
+    @Override public String[] keys() { return state.keys(); }
+
+    @Override public void forEach(BiConsumer<String, Object> action) { state.forEach(action); }
+
+    @Override public Metadata freeze() { return state.freeze(); }
+
     @Override public Mutadata put(String key, @Nullable Object value) {
-        data.put(key, value);
+        int ordinal = ExtensionRegistry.ordinal(key);
+        synchronized (this) { state = state.with(ordinal, value); }
         return this;
     }
 
     @Override public Mutadata remove(String key) {
-        data.remove(key);
+        int ordinal = ExtensionRegistry.ordinalOf(key);
+        if (ordinal >= 0) synchronized (this) { state = state.without(ordinal); }
         return this;
     }
 }
+
+/** Layer delegating first to the metadata returned by the scope for the parent, and then to the parent itself. */
+class ScopedMetadata implements Metadata {
+    final Metadata parent;
+    final Function<? super Metadata, ? extends Metadata> scope;
+
+    ScopedMetadata(Metadata parent, Function<? super Metadata, ? extends Metadata> scope) {
+        this.parent = parent;
+        this.scope = scope;
+    }
+
+    @Override public @Nullable Object data(@Nonnull String key) {
+        Metadata context = scope.apply(parent);
+        Object value = context == null ? null : context.data(key);
+        return value != null ? value : hides(context, ExtensionRegistry.ordinalOf(key)) ? null : parent.data(key);
+    }
+
+    @Override public @Nullable Object data(int ordinal) {
+        Metadata context = scope.apply(parent);
+        Object value = context == null ? null : context.data(ordinal);
+        return value != null ? value : hides(context, ordinal) ? null : parent.data(ordinal);
+    }
+
+    @Override public String[] keys() {
+        Metadata context = scope.apply(parent);
+        return context == null ? parent.keys() : ExtensionRegistry.union(context.keys(), parent.keys());
+    }
+
+    @Override public void forEach(BiConsumer<String, Object> action) {
+        Metadata context = scope.apply(parent);
+        if (context == null) { parent.forEach(action); return; }
+        context.forEach(action);
+        parent.forEach((key, value) -> {
+            if (context.data(key) == null && !hides(context, ExtensionRegistry.ordinalOf(key))) {
+                action.accept(key, value);
+            }
+        });
+    }
+
+    /** Whether the scope overrides the boxed accessor of the ordinal, see Defaults#boxedAccessor. */
+    private static boolean hides(@Nullable Metadata context, int ordinal) {
+        int boxed = context == null || ordinal < 0 ? -1 : Defaults.boxedAccessor(ordinal);
+        return boxed >= 0 && context.data(boxed) != null;
+    }
+}
+
+/** Flat immutable snapshot of a metadata, values are indexed by extension ordinal. */
+class FrozenMetadata implements Metadata {
+    private final String[] keys;
+    private final Object[] data;
+    private final ViewCache views = new ViewCache();
+
+    FrozenMetadata(Metadata source) {
+        List<String> keys = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        source.forEach((key, value) -> { keys.add(key); values.add(value); });
+        int[] ordinals = new int[keys.size()];
+        int size = 0;
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = ExtensionRegistry.ordinal(keys.get(i));
+            size = Math.max(size, ordinals[i] + 1);
+        }
+        Object[] data = new Object[size];
+        for (int i = 0; i < ordinals.length; i++) data[ordinals[i]] = values.get(i);
+        this.keys = keys.toArray(NO_KEYS);
+        this.data = data;
+    }
+
+    @Override public @Nullable Object data(@Nonnull String key) {
+        int ordinal = ExtensionRegistry.ordinalOf(key);
+        return ordinal < 0 ? null : data(ordinal);
+    }
+
+    @Override public @Nullable Object data(int ordinal) {
+        return ordinal < data.length ? data[ordinal] : null;
+    }
+
+    @Override public String[] keys() { return keys; }
+
+    @Override public void forEach(BiConsumer<String, Object> action) {
+        for (int i = 0; i < data.length; i++) if (data[i] != null) action.accept(ExtensionRegistry.key(i), data[i]);
+    }
+
+    @Override public <Q> Q view(Class<Q> type, Function<? super Metadata, ? extends Q> factory) {
+        return views.get(type, this, factory);
+    }
+
+    @Override public Metadata freeze() { return this; }
+}
+
+/** Copy-on-write cache of typed views, keyed by view type. */
+final class ViewCache {
+    private static final Object[] EMPTY = new Object[0];
+    private volatile Object[] entries = EMPTY; // type, view pairs
+
+    @SuppressWarnings("unchecked")
+    <Q> Q get(Class<Q> type, Metadata source, Function<? super Metadata, ? extends Q> factory) {
+        Object[] entries = this.entries;
+        for (int i = 0; i < entries.length; i += 2) if (entries[i] == type) return (Q) entries[i + 1];
+        Q view = factory.apply(source);
+        synchronized (this) {
+            entries = this.entries;
+            for (int i = 0; i < entries.length; i += 2) if (entries[i] == type) return (Q) entries[i + 1];
+            entries = Arrays.copyOf(entries, entries.length + 2);
+            entries[entries.length - 2] = type;
+            entries[entries.length - 1] = view;
+            this.entries = entries;
+        }
+        return view;
+    }
+}
+
+/** Immutable override layer, its entries are sorted by extension ordinal in small parallel arrays. */
+class LayerMetadata implements Metadata {
+    private static final Object NULL = new Object();
+    final Metadata parent;
+    final int[] ordinals;
+    /** Values of each ordinal, {@link #NULL} if explicitly set to null. */
+    final Object[] values;
+    private volatile @Nullable MergedKeys keys; // lazy, layers are often created only to be read
+
+    LayerMetadata(Metadata parent, int ordinal, @Nullable Object value) {
+        this(parent, new int[] { ordinal }, new Object[] { value == null ? NULL : value });
+    }
+
+    LayerMetadata(Metadata parent, int[] ordinals, Object[] values) {
+        this.parent = parent;
+        this.ordinals = ordinals;
+        this.values = values;
+    }
+
+    /** Creates a sibling of this layer, i.e. sharing the same parent. */
+    LayerMetadata layer(int[] ordinals, Object[] values) { return new LayerMetadata(parent, ordinals, values); }
+
+    LayerMetadata with(int ordinal, @Nullable Object value) {
+        Object v = value == null ? NULL : value;
+        int index = Arrays.binarySearch(ordinals, ordinal);
+        if (index >= 0) {
+            Object[] values = this.values.clone();
+            values[index] = v;
+            return layer(ordinals, values);
+        }
+        int insert = -index - 1, size = ordinals.length;
+        int[] ordinals = new int[size + 1];
+        Object[] values = new Object[size + 1];
+        System.arraycopy(this.ordinals, 0, ordinals, 0, insert);
+        System.arraycopy(this.values, 0, values, 0, insert);
+        ordinals[insert] = ordinal;
+        values[insert] = v;
+        System.arraycopy(this.ordinals, insert, ordinals, insert + 1, size - insert);
+        System.arraycopy(this.values, insert, values, insert + 1, size - insert);
+        return layer(ordinals, values);
+    }
+
+    LayerMetadata without(int ordinal) {
+        int index = Arrays.binarySearch(ordinals, ordinal);
+        if (index < 0) return this;
+        int size = ordinals.length - 1;
+        int[] ordinals = new int[size];
+        Object[] values = new Object[size];
+        System.arraycopy(this.ordinals, 0, ordinals, 0, index);
+        System.arraycopy(this.values, 0, values, 0, index);
+        System.arraycopy(this.ordinals, index + 1, ordinals, index, size - index);
+        System.arraycopy(this.values, index + 1, values, index, size - index);
+        return layer(ordinals, values);
+    }
+
+    @Override public Metadata with(String key, @Nullable Object value) {
+        return with(ExtensionRegistry.ordinal(key), value);
+    }
+
+    @Override public @Nullable Object data(@Nonnull String key) {
+        int ordinal = ExtensionRegistry.ordinalOf(key);
+        return ordinal < 0 ? parent.data(key) : data(ordinal);
+    }
+
+    @Override public @Nullable Object data(int ordinal) {
+        if (ordinal == METADATA_MUTATOR.getOrdinal()) return null; // immutable
+        int index = Arrays.binarySearch(ordinals, ordinal);
+        if (index < 0) return hides(ordinal) ? null : parent.data(ordinal);
+        Object value = values[index];
+        return value == NULL ? null : value;
+    }
+
+    @Override public String[] keys() {
+        MergedKeys keys = this.keys;
+        if (keys == null) {
+            String[] own = new String[ordinals.length];
+            for (int i = 0; i < ordinals.length; i++) own[i] = ExtensionRegistry.key(ordinals[i]);
+            this.keys = keys = new MergedKeys(own);
+        }
+        return keys.get(parent);
+    }
+
+    @Override public void forEach(BiConsumer<String, Object> action) {
+        for (int i = 0; i < ordinals.length; i++) {
+            if (values[i] != NULL) action.accept(ExtensionRegistry.key(ordinals[i]), values[i]);
+        }
+        parent.forEach((key, value) -> {
+            int ordinal = ExtensionRegistry.ordinalOf(key);
+            if (ordinal < 0 || Arrays.binarySearch(ordinals, ordinal) < 0 && !hides(ordinal)) {
+                action.accept(key, value);
+            }
+        });
+    }
+
+    /** Whether the parent value is hidden because this overrides its boxed accessor, see Defaults#boxedAccessor. */
+    private boolean hides(int ordinal) {
+        int boxed = Defaults.boxedAccessor(ordinal);
+        return boxed >= 0 && Arrays.binarySearch(ordinals, boxed) >= 0;
+    }
+}
@@ -0,0 +1,33 @@
+package com.intendia.qualifier;
+
+import javax.annotation.Nullable;
+
+/**
+ * Extension resolved ahead of time for repeated lookups. The ordinal is resolved once and generated qualifiers answer
+ * from its flattened resolution table (declared constant, mixin value or absent), so each lookup on them is a type
+ * guard and an array read instead of a string dispatch followed by a mixin walk. Other metadata are resolved using
+ * {@link Metadata#data(int)}.
+ */
+public final class PreparedExtension<T> {
+    private final Extension<T> extension;
+    private final int ordinal;
+
+    PreparedExtension(Extension<T> extension) {
+        this.extension = extension;
+        this.ordinal = extension.getOrdinal();
+    }
+
+    public Extension<T> getExtension() { return extension; }
+
+    @SuppressWarnings("unchecked")
+    public @Nullable T get(Metadata q) {
+        if (q instanceof StaticQualifier) return (T) ((StaticQualifier<?>) q).resolve(ordinal);
+        return (T) q.data(ordinal);
+    }
+
+    public T get(Metadata q, T or) {
+        T t = get(q); return t != null ? t : or;
+    }
+
+    @Override public String toString() { return "prepared " + extension; }
+}
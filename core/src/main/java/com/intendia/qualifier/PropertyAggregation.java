@@ -0,0 +1,288 @@
+package com.intendia.qualifier;
+
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_DOUBLE_GETTER;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_INT_GETTER;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_LONG_GETTER;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+import javax.annotation.Nullable;
+
+/**
+ * Immutable group-by and aggregation spec over bean properties, e.g.
+ * {@code PropertyAggregation.groupBy(category).count().sum(revenue).avg(revenue)}. The result maps each group tuple
+ * (the list of grouping property values, in first seen order) to the row of aggregated values (in the order they
+ * were added, see {@link #getColumns()}).
+ *
+ * <p>Numeric aggregates accumulate into primitive {@code long} (integral properties) or {@code double} slots of a
+ * per-group accumulator, reading primitive properties through their unboxed getters; null values are ignored and
+ * aggregating only nulls yields null. {@link #parallel(Collection)} collects partial accumulators on the fork-join
+ * pool (through a parallel stream) and merges them at the end.
+ */
+public final class PropertyAggregation<T> {
+    enum Kind {
+        COUNT("count"), SUM("sum"), MIN("min"), MAX("max"), AVG("avg"), DISTINCT("countDistinct");
+
+        final String label; // column name prefix, fixed so it does not depend on the default locale
+
+        Kind(String label) { this.label = label; }
+    }
+
+    private final PropertyQualifier<T, ?>[] groups;
+    private final Function<T, ?>[] groupGetters;
+    private final Aggregate<T>[] aggregates;
+
+    @SuppressWarnings("unchecked")
+    private PropertyAggregation(PropertyQualifier<T, ?>[] groups, Aggregate<T>[] aggregates) {
+        this.groups = groups;
+        this.groupGetters = new Function[groups.length];
+        for (int i = 0; i < groups.length; i++) groupGetters[i] = groups[i].getGetter();
+        this.aggregates = aggregates;
+    }
+
+    /** Aggregation grouped by the properties values, no properties means a single group with an empty tuple. */
+    @SuppressWarnings("unchecked")
+    @SafeVarargs public static <T> PropertyAggregation<T> groupBy(PropertyQualifier<T, ?>... properties) {
+        return new PropertyAggregation<>(properties.clone(), new Aggregate[0]);
+    }
+
+    /** Number of beans. */
+    public PropertyAggregation<T> count() { return add(Kind.COUNT, null); }
+
+    public PropertyAggregation<T> sum(PropertyQualifier<T, ? extends Number> property) {
+        return add(Kind.SUM, property);
+    }
+
+    public PropertyAggregation<T> min(PropertyQualifier<T, ? extends Number> property) {
+        return add(Kind.MIN, property);
+    }
+
+    public PropertyAggregation<T> max(PropertyQualifier<T, ? extends Number> property) {
+        return add(Kind.MAX, property);
+    }
+
+    public PropertyAggregation<T> avg(PropertyQualifier<T, ? extends Number> property) {
+        return add(Kind.AVG, property);
+    }
+
+    /** Number of distinct non null values, values are boxed into a set. */
+    public PropertyAggregation<T> countDistinct(PropertyQualifier<T, ?> property) {
+        return add(Kind.DISTINCT, property);
+    }
+
+    public List<PropertyQualifier<T, ?>> getGroups() { return unmodifiableList(Arrays.asList(groups)); }
+
+    /** Column names of the aggregated rows, like {@code sum(revenue)}. */
+    public List<String> getColumns() {
+        List<String> out = new ArrayList<>(aggregates.length);
+        for (Aggregate<T> aggregate : aggregates) out.add(aggregate.toString());
+        return out;
+    }
+
+    public Map<List<Object>, Object[]> apply(Iterable<? extends T> beans) {
+        Map<List<Object>, Accumulator> groups = new LinkedHashMap<>();
+        for (T bean : beans) accumulate(groups, bean);
+        return finish(groups);
+    }
+
+    public Map<List<Object>, Object[]> parallel(Collection<? extends T> beans) {
+        return beans.parallelStream().collect(collector());
+    }
+
+    /** Collector of this aggregation, partial results of parallel streams are merged by group. */
+    public Collector<T, ?, Map<List<Object>, Object[]>> collector() {
+        return Collector.<T, Map<List<Object>, Accumulator>, Map<List<Object>, Object[]>>of(
+                LinkedHashMap::new, this::accumulate, this::merge, this::finish);
+    }
+
+    private void accumulate(Map<List<Object>, Accumulator> groups, T bean) {
+        List<Object> key = key(bean);
+        Accumulator accumulator = groups.get(key);
+        if (accumulator == null) groups.put(key, accumulator = new Accumulator(aggregates.length));
+        for (int i = 0; i < aggregates.length; i++) aggregates[i].accept(accumulator, i, bean);
+    }
+
+    private Map<List<Object>, Accumulator> merge(Map<List<Object>, Accumulator> a, Map<List<Object>, Accumulator> b) {
+        for (Map.Entry<List<Object>, Accumulator> e : b.entrySet()) {
+            Accumulator into = a.get(e.getKey());
+            if (into == null) a.put(e.getKey(), e.getValue());
+            else for (int i = 0; i < aggregates.length; i++) aggregates[i].merge(into, e.getValue(), i);
+        }
+        return a;
+    }
+
+    private Map<List<Object>, Object[]> finish(Map<List<Object>, Accumulator> groups) {
+        Map<List<Object>, Object[]> out = new LinkedHashMap<>();
+        for (Map.Entry<List<Object>, Accumulator> e : groups.entrySet()) {
+            Object[] row = new Object[aggregates.length];
+            for (int i = 0; i < row.length; i++) row[i] = aggregates[i].result(e.getValue(), i);
+            out.put(e.getKey(), row);
+        }
+        return out;
+    }
+
+    private List<Object> key(T bean) {
+        if (groupGetters.length == 0) return emptyList();
+        Object[] values = new Object[groupGetters.length];
+        for (int i = 0; i < values.length; i++) values[i] = groupGetters[i].apply(bean);
+        return Arrays.asList(values);
+    }
+
+    private PropertyAggregation<T> add(Kind kind, @Nullable PropertyQualifier<T, ?> property) {
+        Aggregate<T>[] aggregates = Arrays.copyOf(this.aggregates, this.aggregates.length + 1);
+        aggregates[this.aggregates.length] = new Aggregate<>(kind, property);
+        return new PropertyAggregation<>(groups, aggregates);
+    }
+
+    @Override public String toString() {
+        StringBuilder out = new StringBuilder();
+        for (PropertyQualifier<T, ?> group : groups) out.append(out.length() > 0 ? ", " : "").append(group.getPath());
+        return "group by [" + out + "] " + getColumns();
+    }
+
+    /** Per group state, each aggregate uses the slots of its index (count, long value, double value and set). */
+    private static final class Accumulator {
+        final long[] counts;
+        final long[] longs;
+        final double[] doubles;
+        @Nullable Set<Object>[] sets;
+
+        Accumulator(int size) {
+            counts = new long[size];
+            longs = new long[size];
+            doubles = new double[size];
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<Object> set(int i) {
+            if (sets == null) sets = new Set[counts.length];
+            Set<Object> set = sets[i];
+            if (set == null) sets[i] = set = new HashSet<>();
+            return set;
+        }
+    }
+
+    private static final class Aggregate<T> {
+        final Kind kind;
+        final @Nullable PropertyQualifier<T, ?> property;
+        final boolean integral;
+        final @Nullable ToLongFunction<T> longGetter; // unboxed getter if primitive
+        final @Nullable ToDoubleFunction<T> doubleGetter; // unboxed getter if primitive
+        final @Nullable Function<T, ?> getter;
+
+        @SuppressWarnings("unchecked")
+        Aggregate(Kind kind, @Nullable PropertyQualifier<T, ?> property) {
+            this.kind = kind;
+            this.property = property;
+            if (property == null) {
+                integral = true;
+                longGetter = null;
+                doubleGetter = null;
+                getter = null;
+                return;
+            }
+            ToIntFunction<T> intGetter = (ToIntFunction<T>) property.data(PROPERTY_INT_GETTER);
+            ToLongFunction<T> longGetter = (ToLongFunction<T>) property.data(PROPERTY_LONG_GETTER);
+            if (intGetter != null && longGetter == null) longGetter = intGetter::applyAsInt;
+            this.doubleGetter = longGetter == null ? (ToDoubleFunction<T>) property.data(PROPERTY_DOUBLE_GETTER) : null;
+            this.longGetter = longGetter;
+            Class<?> type = property.getType();
+            this.integral = longGetter != null || doubleGetter == null && (type == Integer.class || type == Long.class
+                    || type == Short.class || type == Byte.class);
+            this.getter = kind == Kind.DISTINCT || longGetter == null && doubleGetter == null
+                    ? property.getGetter() : null;
+        }
+
+        void accept(Accumulator acc, int i, T bean) {
+            if (kind == Kind.COUNT) { acc.counts[i]++; return; }
+            if (kind == Kind.DISTINCT) {
+                Object value = getter.apply(bean);
+                if (value != null) acc.set(i).add(value);
+                return;
+            }
+            if (integral) {
+                long value;
+                if (longGetter != null) value = longGetter.applyAsLong(bean);
+                else {
+                    Object boxed = getter.apply(bean);
+                    if (boxed == null) return;
+                    value = ((Number) boxed).longValue();
+                }
+                long n = ++acc.counts[i];
+                switch (kind) {
+                    case MIN: if (n == 1 || value < acc.longs[i]) acc.longs[i] = value; break;
+                    case MAX: if (n == 1 || value > acc.longs[i]) acc.longs[i] = value; break;
+                    default: acc.longs[i] += value;
+                }
+            } else {
+                double value;
+                if (doubleGetter != null) value = doubleGetter.applyAsDouble(bean);
+                else {
+                    Object boxed = getter.apply(bean);
+                    if (boxed == null) return;
+                    value = ((Number) boxed).doubleValue();
+                }
+                long n = ++acc.counts[i];
+                switch (kind) {
+                    case MIN: if (n == 1 || value < acc.doubles[i]) acc.doubles[i] = value; break;
+                    case MAX: if (n == 1 || value > acc.doubles[i]) acc.doubles[i] = value; break;
+                    default: acc.doubles[i] += value;
+                }
+            }
+        }
+
+        void merge(Accumulator into, Accumulator from, int i) {
+            if (kind == Kind.DISTINCT) {
+                if (from.sets != null && from.sets[i] != null) into.set(i).addAll(from.sets[i]);
+                return;
+            }
+            long n = from.counts[i];
+            if (n == 0) return;
+            boolean first = into.counts[i] == 0;
+            into.counts[i] += n;
+            if (kind == Kind.COUNT) return;
+            long l = from.longs[i];
+            double d = from.doubles[i];
+            switch (kind) {
+                case MIN:
+                    if (first || l < into.longs[i]) into.longs[i] = l;
+                    if (first || d < into.doubles[i]) into.doubles[i] = d;
+                    break;
+                case MAX:
+                    if (first || l > into.longs[i]) into.longs[i] = l;
+                    if (first || d > into.doubles[i]) into.doubles[i] = d;
+                    break;
+                default:
+                    into.longs[i] += l;
+                    into.doubles[i] += d;
+            }
+        }
+
+        @Nullable Object result(Accumulator acc, int i) {
+            long n = acc.counts[i];
+            switch (kind) {
+                case COUNT: return n;
+                case DISTINCT: return (long) (acc.sets == null || acc.sets[i] == null ? 0 : acc.sets[i].size());
+                case AVG: return n == 0 ? null : (integral ? (double) acc.longs[i] : acc.doubles[i]) / n;
+                default: return n == 0 ? null : integral ? (Object) acc.longs[i] : (Object) acc.doubles[i];
+            }
+        }
+
+        @Override public String toString() {
+            return kind.label + "(" + (property == null ? "" : property.getPath()) + ")";
+        }
+    }
+}
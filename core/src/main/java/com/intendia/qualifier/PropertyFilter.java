@@ -0,0 +1,479 @@
+package com.intendia.qualifier;
+
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_BOOLEAN_GETTER;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_DOUBLE_GETTER;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_INT_GETTER;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_LONG_GETTER;
+import static java.util.Collections.singletonList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import javax.annotation.Nullable;
+
+/**
+ * Filter expression over the properties of a bean, compiled once into a predicate. The expression compares property
+ * paths with literals, combined with {@code &&}, {@code ||}, {@code !} (or {@code and}, {@code or}, {@code not}) and
+ * parenthesis, e.g. {@code age > 30 && address.city = 'Madrid'}. Comparison operators are {@code = == != <> < <= >
+ * >=}, literals are numbers, quoted strings ({@code 'it''s'} or {@code "it's"}), {@code true}, {@code false} and
+ * {@code null} (only with equality operators). A boolean path without operator is the same as {@code path = true}.
+ *
+ * <p>Paths are resolved against the bean metamodel at compile time. Literals are converted to the property type (
+ * numbers, booleans, characters, strings and enum constants by name), primitive properties are compared through
+ * their unboxed getters and the rest through the {@link Qualifier#getTypeComparator() type comparator}; other types
+ * are compared by their string representation. Null values never match ordering comparisons. The terms of each
+ * {@code &&} and {@code ||} are reordered by estimated selectivity and cost, so cheap discarding terms run first, and
+ * {@link #select(IndexedBeans)} looks up the most selective indexed term before testing the candidates.
+ */
+public final class PropertyFilter<T> implements Predicate<T> {
+    private final String expression;
+    private final Node<T> root;
+
+    private PropertyFilter(String expression, Node<T> root) {
+        this.expression = expression;
+        this.root = root;
+    }
+
+    /** @throws IllegalArgumentException if the expression is malformed or references unknown properties */
+    public static <T> PropertyFilter<T> compile(Qualifier<T> bean, String expression) {
+        return new PropertyFilter<>(expression, new Parser<>(bean, expression).parse());
+    }
+
+    @Override public boolean test(T bean) { return root.test(bean); }
+
+    /** Estimated fraction of beans matching this filter, from 0 to 1. */
+    public double getSelectivity() { return root.selectivity; }
+
+    /** Returns the matching beans, using the collection indexes to narrow the candidates if possible. */
+    public List<T> select(IndexedBeans<T> beans) {
+        Collection<T> candidates = beans;
+        List<Node<T>> terms = root instanceof And ? ((And<T>) root).terms : singletonList(root);
+        for (Node<T> term : terms) {
+            Collection<T> indexed = term.lookup(beans);
+            if (indexed != null && indexed.size() < candidates.size()) candidates = indexed;
+        }
+        List<T> out = new ArrayList<>();
+        for (T bean : candidates) if (root.test(bean)) out.add(bean);
+        return out;
+    }
+
+    @Override public String toString() { return root.toString(); }
+
+    public String getExpression() { return expression; }
+
+    enum Op {
+        EQ("="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">=");
+
+        final String symbol;
+
+        Op(String symbol) { this.symbol = symbol; }
+
+        boolean test(int c) {
+            switch (this) {
+                case EQ: return c == 0;
+                case NE: return c != 0;
+                case LT: return c < 0;
+                case LE: return c <= 0;
+                case GT: return c > 0;
+                default: return c >= 0;
+            }
+        }
+
+        double selectivity() { return this == EQ ? 0.1 : this == NE ? 0.9 : 1. / 3; }
+    }
+
+    private static abstract class Node<T> implements Predicate<T> {
+        final double selectivity;
+        final double cost;
+
+        Node(double selectivity, double cost) {
+            this.selectivity = selectivity;
+            this.cost = cost;
+        }
+
+        @Nullable Collection<T> lookup(IndexedBeans<T> beans) { return null; }
+    }
+
+    private static final class Comparison<T> extends Node<T> {
+        final PropertyQualifier<T, ?> property;
+        final Op op;
+        final @Nullable Object value; // literal converted to the property type, or null if not convertible
+        final Predicate<T> predicate;
+        final String literal;
+
+        Comparison(PropertyQualifier<T, ?> property, Op op, @Nullable Object value, String literal,
+                Predicate<T> predicate, double cost) {
+            super(op.selectivity(), cost);
+            this.property = property;
+            this.op = op;
+            this.value = value;
+            this.literal = literal;
+            this.predicate = predicate;
+        }
+
+        @Override public boolean test(T t) { return predicate.test(t); }
+
+        @Override @Nullable Collection<T> lookup(IndexedBeans<T> beans) {
+            if (value == null || op == Op.NE) return null;
+            PropertyIndex<T> index = beans.findIndex(singletonList(property), op != Op.EQ);
+            if (index == null) return null;
+            switch (op) {
+                case EQ: return index.get(value);
+                case LT: case LE: return index.range(null, false, value, op == Op.LE);
+                default: return index.range(value, op == Op.GE, null, false);
+            }
+        }
+
+        @Override public String toString() { return property.getPath() + " " + op.symbol + " " + literal; }
+    }
+
+    private static final class And<T> extends Node<T> {
+        final List<Node<T>> terms;
+        private final Node<T>[] array;
+
+        And(List<Node<T>> terms) {
+            super(product(terms, false), totalCost(terms));
+            terms.sort(Comparator.comparingDouble(n -> n.cost / Math.max(1e-9, 1 - n.selectivity)));
+            this.terms = terms;
+            this.array = toArray(terms);
+        }
+
+        @Override public boolean test(T t) {
+            for (Node<T> term : array) if (!term.test(t)) return false;
+            return true;
+        }
+
+        @Override public String toString() { return join(terms, " && "); }
+    }
+
+    private static final class Or<T> extends Node<T> {
+        final List<Node<T>> terms;
+        private final Node<T>[] array;
+
+        Or(List<Node<T>> terms) {
+            super(1 - product(terms, true), totalCost(terms));
+            terms.sort(Comparator.comparingDouble(n -> n.cost / Math.max(1e-9, n.selectivity)));
+            this.terms = terms;
+            this.array = toArray(terms);
+        }
+
+        @Override public boolean test(T t) {
+            for (Node<T> term : array) if (term.test(t)) return true;
+            return false;
+        }
+
+        @Override public String toString() { return join(terms, " || "); }
+    }
+
+    private static final class Not<T> extends Node<T> {
+        final Node<T> term;
+
+        Not(Node<T> term) {
+            super(1 - term.selectivity, term.cost);
+            this.term = term;
+        }
+
+        @Override public boolean test(T t) { return !term.test(t); }
+
+        @Override public String toString() { return "!(" + term + ")"; }
+    }
+
+    private static double product(List<? extends Node<?>> terms, boolean complement) {
+        double out = 1;
+        for (Node<?> term : terms) out *= complement ? 1 - term.selectivity : term.selectivity;
+        return out;
+    }
+
+    private static double totalCost(List<? extends Node<?>> terms) {
+        double out = 0;
+        for (Node<?> term : terms) out += term.cost;
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T>[] toArray(List<Node<T>> terms) { return terms.toArray(new Node[0]); }
+
+    private static String join(List<? extends Node<?>> terms, String separator) {
+        StringBuilder out = new StringBuilder("(");
+        for (Node<?> term : terms) out.append(out.length() > 1 ? separator : "").append(term);
+        return out.append(")").toString();
+    }
+
+    /**
+     * Recursive descent parser, the grammar is {@code or: and (|| and)*}, {@code and: unary (&& unary)*} and
+     * {@code unary: ! unary | ( or ) | path op literal}.
+     */
+    private static final class Parser<T> {
+        private static final Object UNKNOWN = new Object();
+        private final Qualifier<T> bean;
+        private final String in;
+        private int pos;
+
+        Parser(Qualifier<T> bean, String in) {
+            this.bean = bean;
+            this.in = in;
+        }
+
+        Node<T> parse() {
+            Node<T> out = or();
+            skipSpaces();
+            if (pos != in.length()) throw error("unexpected input");
+            return out;
+        }
+
+        private Node<T> or() {
+            List<Node<T>> terms = new ArrayList<>();
+            terms.add(and());
+            while (accept("||") || acceptWord("or")) terms.add(and());
+            return terms.size() == 1 ? terms.get(0) : new Or<>(terms);
+        }
+
+        private Node<T> and() {
+            List<Node<T>> terms = new ArrayList<>();
+            terms.add(unary());
+            while (accept("&&") || acceptWord("and")) terms.add(unary());
+            return terms.size() == 1 ? terms.get(0) : new And<>(terms);
+        }
+
+        private Node<T> unary() {
+            if (accept("!") || acceptWord("not")) return new Not<>(unary());
+            if (accept("(")) {
+                Node<T> out = or();
+                if (!accept(")")) throw error("')' expected");
+                return out;
+            }
+            return comparison();
+        }
+
+        @SuppressWarnings("unchecked")
+        private Node<T> comparison() {
+            String path = path();
+            PropertyQualifier<T, Object> property = (PropertyQualifier<T, Object>) bean.getProperty(path);
+            if (property == null) throw error("unknown property " + path);
+            Op op = op();
+            Object literal;
+            String text;
+            if (op == null) { // bare boolean path
+                if (boxed(property.getType()) != Boolean.class) throw error("comparison operator expected");
+                op = Op.EQ;
+                literal = true;
+                text = "true";
+            } else {
+                skipSpaces();
+                int start = pos;
+                literal = literal();
+                text = in.substring(start, pos);
+            }
+            return comparison(property, path, op, literal, text);
+        }
+
+        @SuppressWarnings("unchecked")
+        private Node<T> comparison(PropertyQualifier<T, Object> property, String path, Op op, @Nullable Object literal,
+                String text) {
+            double cost = 1 + count(property.getPath(), '.');
+
+            Function<T, Object> getter = property.getGetter();
+            if (literal == null) {
+                if (op != Op.EQ && op != Op.NE) throw error("null only supports equality");
+                Predicate<T> isNull = t -> getter.apply(t) == null;
+                return new Comparison<>(property, op, null, text, op == Op.EQ ? isNull : isNull.negate(), cost);
+            }
+
+            Object value = convert(boxed(property.getType()), literal, path);
+            Predicate<T> primitive = primitive(property, op, literal);
+            if (primitive != null) {
+                return new Comparison<>(property, op, value == UNKNOWN ? null : value, text, primitive, cost * 0.5);
+            }
+            Predicate<T> predicate;
+            if (value != UNKNOWN) {
+                Comparator<Object> comparator = (Comparator<Object>) property.getTypeComparator();
+                if (op == Op.EQ) predicate = t -> value.equals(getter.apply(t));
+                else if (op == Op.NE) predicate = t -> !value.equals(getter.apply(t));
+                else predicate = t -> {
+                    Object v = getter.apply(t);
+                    return v != null && op.test(comparator.compare(v, value));
+                };
+            } else if (literal instanceof Number) {
+                double number = ((Number) literal).doubleValue();
+                predicate = t -> {
+                    Object v = getter.apply(t);
+                    return v instanceof Number ? op.test(Double.compare(((Number) v).doubleValue(), number))
+                            : v == null ? op == Op.NE : op.test(String.valueOf(v).compareTo(String.valueOf(literal)));
+                };
+            } else {
+                String string = String.valueOf(literal);
+                predicate = t -> {
+                    Object v = getter.apply(t);
+                    return v == null ? op == Op.NE : op.test(String.valueOf(v).compareTo(string));
+                };
+                cost += 1;
+            }
+            return new Comparison<>(property, op, value == UNKNOWN ? null : value, text, predicate, cost);
+        }
+
+        /** Compiles the comparison through the unboxed getter of primitive properties, or null if not primitive. */
+        @SuppressWarnings("unchecked")
+        private @Nullable Predicate<T> primitive(PropertyQualifier<T, ?> property, Op op, Object literal) {
+            if (literal instanceof Boolean) {
+                Predicate<T> getter = (Predicate<T>) property.data(PROPERTY_BOOLEAN_GETTER);
+                if (getter == null) return null;
+                boolean b = (Boolean) literal;
+                return t -> op.test(Boolean.compare(getter.test(t), b));
+            }
+            if (!(literal instanceof Number)) return null;
+            boolean integral = literal instanceof Long;
+            long l = ((Number) literal).longValue();
+            double d = ((Number) literal).doubleValue();
+            ToIntFunction<T> intGetter = (ToIntFunction<T>) property.data(PROPERTY_INT_GETTER);
+            if (intGetter != null) return integral
+                    ? t -> op.test(Long.compare(intGetter.applyAsInt(t), l))
+                    : t -> op.test(Double.compare(intGetter.applyAsInt(t), d));
+            ToLongFunction<T> longGetter = (ToLongFunction<T>) property.data(PROPERTY_LONG_GETTER);
+            if (longGetter != null) return integral
+                    ? t -> op.test(Long.compare(longGetter.applyAsLong(t), l))
+                    : t -> op.test(Double.compare(longGetter.applyAsLong(t), d));
+            ToDoubleFunction<T> doubleGetter = (ToDoubleFunction<T>) property.data(PROPERTY_DOUBLE_GETTER);
+            if (doubleGetter != null) return t -> op.test(Double.compare(doubleGetter.applyAsDouble(t), d));
+            return null;
+        }
+
+        /** Converts the literal to the property type, returns {@link #UNKNOWN} if not convertible. */
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private Object convert(Class<?> type, Object literal, String path) {
+            if (literal instanceof Number) {
+                Number n = (Number) literal;
+                boolean integral = literal instanceof Long;
+                long l = n.longValue();
+                if (type == Long.class) return integral ? literal : UNKNOWN;
+                if (type == Integer.class) return integral && (int) l == l ? (Object) (int) l : UNKNOWN;
+                if (type == Short.class) return integral && (short) l == l ? (Object) (short) l : UNKNOWN;
+                if (type == Byte.class) return integral && (byte) l == l ? (Object) (byte) l : UNKNOWN;
+                if (type == Double.class) return n.doubleValue();
+                if (type == Float.class) return n.floatValue();
+                return UNKNOWN;
+            }
+            if (literal instanceof Boolean) return type == Boolean.class ? literal : UNKNOWN;
+            String s = (String) literal;
+            if (type == String.class) return s;
+            if (type == Character.class && s.length() == 1) return s.charAt(0);
+            if (type.isEnum()) {
+                for (Object constant : type.getEnumConstants()) if (((Enum) constant).name().equals(s)) return constant;
+                throw error("unknown constant " + s + " of " + path);
+            }
+            return UNKNOWN;
+        }
+
+        private static Class<?> boxed(Class<?> type) {
+            if (!type.isPrimitive()) return type;
+            if (type == int.class) return Integer.class;
+            if (type == long.class) return Long.class;
+            if (type == double.class) return Double.class;
+            if (type == boolean.class) return Boolean.class;
+            if (type == float.class) return Float.class;
+            if (type == short.class) return Short.class;
+            if (type == byte.class) return Byte.class;
+            return type == char.class ? Character.class : type;
+        }
+
+        private String path() {
+            skipSpaces();
+            int start = pos;
+            while (pos < in.length() && (Character.isLetterOrDigit(in.charAt(pos)) || in.charAt(pos) == '_'
+                    || in.charAt(pos) == '$' || in.charAt(pos) == '.')) pos++;
+            if (start == pos) throw error("property path expected");
+            return in.substring(start, pos);
+        }
+
+        private @Nullable Op op() {
+            if (accept("==") || accept("=")) return Op.EQ;
+            if (accept("!=") || accept("<>")) return Op.NE;
+            if (accept("<=")) return Op.LE;
+            if (accept(">=")) return Op.GE;
+            if (accept("<")) return Op.LT;
+            if (accept(">")) return Op.GT;
+            return null;
+        }
+
+        private @Nullable Object literal() {
+            if (pos == in.length()) throw error("literal expected");
+            char c = in.charAt(pos);
+            if (c == '\'' || c == '"') {
+                StringBuilder out = new StringBuilder();
+                for (pos++; ; pos++) {
+                    if (pos == in.length()) throw error("unterminated string");
+                    char next = in.charAt(pos);
+                    if (next == c) {
+                        if (pos + 1 < in.length() && in.charAt(pos + 1) == c) pos++; // doubled quote
+                        else { pos++; return out.toString(); }
+                    }
+                    out.append(next);
+                }
+            }
+            if (c == '-' || c == '+' || c == '.' || Character.isDigit(c)) {
+                int start = pos++;
+                while (pos < in.length() && (isNumberPart(in.charAt(pos)) || isExponentSign(pos))) pos++;
+                String number = in.substring(start, pos).replace("_", "");
+                try {
+                    if (number.matches("[+-]?\\d+")) {
+                        try {
+                            return Long.parseLong(number);
+                        } catch (NumberFormatException outOfRange) {
+                            // integers out of the long range are compared as doubles
+                        }
+                    }
+                    return Double.parseDouble(number);
+                } catch (NumberFormatException e) {
+                    pos = start;
+                    throw error("malformed number " + number);
+                }
+            }
+            if (acceptWord("true")) return true;
+            if (acceptWord("false")) return false;
+            if (acceptWord("null")) return null;
+            throw error("literal expected");
+        }
+
+        private static boolean isNumberPart(char c) {
+            return Character.isDigit(c) || c == '.' || c == '_' || c == 'e' || c == 'E';
+        }
+
+        private boolean isExponentSign(int i) {
+            char c = in.charAt(i);
+            return (c == '+' || c == '-') && (in.charAt(i - 1) == 'e' || in.charAt(i - 1) == 'E');
+        }
+
+        private boolean accept(String token) {
+            skipSpaces();
+            if (!in.startsWith(token, pos)) return false;
+            pos += token.length();
+            return true;
+        }
+
+        private boolean acceptWord(String word) {
+            skipSpaces();
+            int end = pos + word.length();
+            if (!in.regionMatches(true, pos, word, 0, word.length())) return false;
+            if (end < in.length() && (Character.isLetterOrDigit(in.charAt(end)) || in.charAt(end) == '_')) return false;
+            pos = end;
+            return true;
+        }
+
+        private void skipSpaces() { while (pos < in.length() && Character.isWhitespace(in.charAt(pos))) pos++; }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at " + pos + " in '" + in + "'");
+        }
+
+        private static int count(String str, char c) {
+            int out = 0;
+            for (int i = 0; i < str.length(); i++) if (str.charAt(i) == c) out++;
+            return out;
+        }
+    }
+}
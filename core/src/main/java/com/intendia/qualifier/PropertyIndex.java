@@ -0,0 +1,154 @@
+package com.intendia.qualifier;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.newSetFromMap;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * Secondary index of the beans of an {@link IndexedBeans} by the value of one or several properties (composed paths
+ * included). Hash indexes answer equality lookups, sorted indexes also answer range lookups ordered by the
+ * {@link Qualifier#getTypeComparator() type comparator} of the properties. Composite keys are the list of the
+ * property values, compared lexicographically by sorted indexes. Beans are tracked by identity.
+ */
+public final class PropertyIndex<T> {
+    private final List<PropertyQualifier<T, ?>> properties;
+    private final Function<T, ?>[] getters;
+    private final Map<Object, Set<T>> entries;
+    private final @Nullable NavigableMap<Object, Set<T>> sorted;
+
+    @SuppressWarnings("unchecked")
+    PropertyIndex(List<PropertyQualifier<T, ?>> properties, boolean sorted) {
+        if (properties.isEmpty()) throw new IllegalArgumentException("index properties required");
+        this.properties = unmodifiableList(new ArrayList<>(properties));
+        this.getters = new Function[properties.size()];
+        for (int i = 0; i < getters.length; i++) getters[i] = properties.get(i).getGetter();
+        this.sorted = sorted ? new TreeMap<>(keyComparator(properties)) : null;
+        this.entries = sorted ? this.sorted : new HashMap<>();
+    }
+
+    public List<PropertyQualifier<T, ?>> getProperties() { return properties; }
+
+    public boolean isSorted() { return sorted != null; }
+
+    /** Whether this index covers exactly these properties, in order. */
+    public boolean isOver(List<? extends PropertyQualifier<T, ?>> properties) {
+        if (properties.size() != this.properties.size()) return false;
+        for (int i = 0; i < properties.size(); i++) {
+            if (!properties.get(i).getPath().equals(this.properties.get(i).getPath())) return false;
+        }
+        return true;
+    }
+
+    /** Returns the index key of the bean, the property value or the list of values for composite indexes. */
+    public @Nullable Object key(T bean) {
+        if (getters.length == 1) return getters[0].apply(bean);
+        Object[] values = new Object[getters.length];
+        for (int i = 0; i < values.length; i++) values[i] = getters[i].apply(bean);
+        return Arrays.asList(values);
+    }
+
+    /** Returns the beans whose properties are equal to the values, one value per indexed property. */
+    public Collection<T> get(@Nullable Object... values) {
+        if (values.length != getters.length) throw new IllegalArgumentException("one value per property required");
+        return getByKey(values.length == 1 ? values[0] : Arrays.asList(values));
+    }
+
+    /** Returns the beans indexed by the key, see {@link #key(Object)}. */
+    public Collection<T> getByKey(@Nullable Object key) {
+        Set<T> beans = entries.get(key);
+        return beans == null ? emptySet() : unmodifiableSet(beans);
+    }
+
+    /**
+     * Returns the beans of sorted indexes with keys in the range, in key order. Null bounds are unbounded, inverted
+     * (or empty) ranges return no beans.
+     *
+     * @throws UnsupportedOperationException if the index is not sorted
+     */
+    public Collection<T> range(@Nullable Object from, boolean fromInclusive, @Nullable Object to, boolean toInclusive) {
+        if (sorted == null) throw new UnsupportedOperationException("range lookups require a sorted index");
+        if (from != null && to != null) {
+            int c = sorted.comparator().compare(from, to);
+            if (c > 0 || c == 0 && !(fromInclusive && toInclusive)) return emptyList();
+        }
+        NavigableMap<Object, Set<T>> range = sorted;
+        if (from != null) range = range.tailMap(from, fromInclusive);
+        if (to != null) range = range.headMap(to, toInclusive);
+        List<T> out = new ArrayList<>();
+        for (Set<T> beans : range.values()) out.addAll(beans);
+        return out;
+    }
+
+    /** Number of distinct keys. */
+    public int keyCount() { return entries.size(); }
+
+    void add(T bean) { add(bean, key(bean)); }
+
+    void add(T bean, @Nullable Object key) {
+        Set<T> beans = entries.get(key);
+        if (beans == null) entries.put(key, beans = newSetFromMap(new IdentityHashMap<>()));
+        beans.add(bean);
+    }
+
+    void remove(T bean) { remove(bean, key(bean)); }
+
+    void remove(T bean, @Nullable Object key) {
+        Set<T> beans = entries.get(key);
+        if (beans != null && beans.remove(bean) && beans.isEmpty()) entries.remove(key);
+    }
+
+    void clear() { entries.clear(); }
+
+    /** Whether changing the property (at its path) may change the key of a bean. */
+    boolean dependsOn(PropertyQualifier<T, ?> property) {
+        String path = property.getPath();
+        for (PropertyQualifier<T, ?> p : properties) {
+            String indexed = p.getPath();
+            if (indexed.equals(path) || indexed.startsWith(path) && indexed.charAt(path.length()) == '.') return true;
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Comparator<Object> keyComparator(List<PropertyQualifier<T, ?>> properties) {
+        if (properties.size() == 1) return nullsFirst(properties.get(0).getTypeComparator());
+        Comparator<Object>[] comparators = new Comparator[properties.size()];
+        for (int i = 0; i < comparators.length; i++) comparators[i] = nullsFirst(properties.get(i).getTypeComparator());
+        return (a, b) -> {
+            List<?> x = (List<?>) a, y = (List<?>) b;
+            for (int i = 0; i < comparators.length; i++) {
+                int c = comparators[i].compare(x.get(i), y.get(i));
+                if (c != 0) return c;
+            }
+            return 0;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparator<Object> nullsFirst(Comparator<?> comparator) {
+        Comparator<Object> c = (Comparator<Object>) comparator;
+        return c == Defaults.NATURAL_COMPARATOR || c == Defaults.TO_STRING_COMPARATOR ? c : Comparator.nullsFirst(c);
+    }
+
+    @Override public String toString() {
+        StringBuilder out = new StringBuilder();
+        for (PropertyQualifier<T, ?> p : properties) out.append(out.length() > 0 ? ", " : "").append(p.getPath());
+        return (isSorted() ? "sorted index[" : "hash index[") + out + "]";
+    }
+}
@@ -0,0 +1,103 @@
+package com.intendia.qualifier;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import javax.annotation.Nullable;
+
+/**
+ * Immutable list of bean properties indexed by name. The index is built on first lookup (so building the list does
+ * not touch the property metamodels) and is queried with name ranges, so dotted paths are resolved without
+ * splitting or allocating substrings.
+ */
+public final class PropertyList<T> extends AbstractList<PropertyQualifier<T, ?>> implements RandomAccess {
+    private final PropertyQualifier<T, ?>[] properties;
+    private volatile @Nullable String[] names;
+    private volatile @Nullable int[] slots; // open addressing table of property index + 1, 0 means empty
+
+    private PropertyList(PropertyQualifier<T, ?>[] properties) { this.properties = properties; }
+
+    @SafeVarargs public static <T> PropertyList<T> of(PropertyQualifier<T, ?>... properties) {
+        return new PropertyList<>(properties);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> PropertyList<T> copyOf(List<PropertyQualifier<T, ?>> properties) {
+        return new PropertyList<>(properties.toArray(new PropertyQualifier[0]));
+    }
+
+    @Override public PropertyQualifier<T, ?> get(int index) { return properties[index]; }
+
+    @Override public int size() { return properties.length; }
+
+    /** Returns the property named exactly as the argument (no path resolution), or null if missing. */
+    public @Nullable PropertyQualifier<T, ?> get(String name) { return find(name, 0, name.length()); }
+
+    /** Returns the property whose name is the {@code [start, end)} range of the path, or null if missing. */
+    @Nullable PropertyQualifier<T, ?> find(String path, int start, int end) {
+        int[] slots = this.slots;
+        if (slots == null) slots = index();
+        String[] names = this.names;
+        int length = end - start, mask = slots.length - 1;
+        for (int i = spread(hash(path, start, end)) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            String name = names[slots[i] - 1];
+            if (name.length() == length && path.regionMatches(start, name, 0, length)) return properties[slots[i] - 1];
+        }
+        return null;
+    }
+
+    private int[] index() {
+        int capacity = 2;
+        while (capacity < properties.length * 2) capacity <<= 1;
+        String[] names = new String[properties.length];
+        int[] slots = new int[capacity];
+        for (int p = 0; p < properties.length; p++) {
+            String name = names[p] = properties[p].getName();
+            int i = spread(name.hashCode()) & (capacity - 1);
+            while (slots[i] != 0 && !names[slots[i] - 1].equals(name)) i = (i + 1) & (capacity - 1);
+            if (slots[i] == 0) slots[i] = p + 1; // first declared wins, same as a linear scan
+        }
+        this.names = names;
+        this.slots = slots;
+        return slots;
+    }
+
+    /** Same as {@link String#hashCode()} of the substring. */
+    private static int hash(String str, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) h = 31 * h + str.charAt(i);
+        return h;
+    }
+
+    private static int spread(int h) { return h ^ (h >>> 16); }
+
+    /** Resolves a dotted property path composing each segment, see {@link Qualifier#getProperty(String)}. */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static @Nullable <T> PropertyQualifier<T, ?> resolve(Qualifier<T> bean, String path) {
+        Qualifier<?> current = bean;
+        PropertyQualifier out = null;
+        int start = 0;
+        for (; ; ) {
+            if (start == path.length()) throw new IllegalArgumentException("not empty name required");
+            int dot = path.indexOf('.', start), end = dot < 0 ? path.length() : dot;
+            PropertyQualifier<?, ?> property = find(current.getProperties(), path, start, end);
+            if (property == null) return null;
+            out = out == null ? property : out.compose(property);
+            if (dot < 0) return out;
+            current = property;
+            start = dot + 1;
+        }
+    }
+
+    private static @Nullable PropertyQualifier<?, ?> find(Collection<? extends PropertyQualifier<?, ?>> properties,
+            String path, int start, int end) {
+        if (properties instanceof PropertyList) return ((PropertyList<?>) properties).find(path, start, end);
+        int length = end - start;
+        for (PropertyQualifier<?, ?> property : properties) {
+            String name = property.getName();
+            if (name.length() == length && path.regionMatches(start, name, 0, length)) return property;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,203 @@
+package com.intendia.qualifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Immutable subset of the properties of a bean (visible columns, partial updates, projections…) backed by a bitset
+ * over the {@link PropertyQualifier#getPropertyOrdinal() property ordinals}. Set operations are word-wise and the
+ * selected ordinals can be iterated without allocation, see {@link #nextOrdinal(int)}.
+ */
+public final class PropertyMask<T> implements Iterable<PropertyQualifier<T, ?>> {
+    private final List<PropertyQualifier<T, ?>> properties;
+    private final long[] bits;
+
+    private PropertyMask(List<PropertyQualifier<T, ?>> properties, long[] bits) {
+        this.properties = properties;
+        this.bits = bits;
+    }
+
+    public static <T> PropertyMask<T> none(Qualifier<T> bean) {
+        List<PropertyQualifier<T, ?>> properties = propertiesOf(bean);
+        return new PropertyMask<>(properties, new long[(properties.size() + 63) >>> 6]);
+    }
+
+    public static <T> PropertyMask<T> all(Qualifier<T> bean) { return none(bean).complement(); }
+
+    @SafeVarargs public static <T> PropertyMask<T> of(Qualifier<T> bean, PropertyQualifier<T, ?>... properties) {
+        return of(bean, Arrays.asList(properties));
+    }
+
+    public static <T> PropertyMask<T> of(Qualifier<T> bean, Collection<? extends PropertyQualifier<T, ?>> properties) {
+        PropertyMask<T> mask = none(bean);
+        for (PropertyQualifier<T, ?> property : properties) mask.set(mask.ordinal(property));
+        return mask;
+    }
+
+    /** Mask of the named properties, unknown names fail with {@link IllegalArgumentException}. */
+    public static <T> PropertyMask<T> of(Qualifier<T> bean, String... names) {
+        PropertyMask<T> mask = none(bean);
+        for (String name : names) {
+            PropertyQualifier<T, ?> property = bean.getProperty(name);
+            if (property == null) throw new IllegalArgumentException("unknown property " + name);
+            mask.set(mask.ordinal(property));
+        }
+        return mask;
+    }
+
+    public boolean contains(int ordinal) {
+        return ordinal >= 0 && ordinal < properties.size() && (bits[ordinal >>> 6] & 1L << ordinal) != 0;
+    }
+
+    public boolean contains(PropertyQualifier<T, ?> property) {
+        int ordinal = property.getPropertyOrdinal();
+        return contains(ordinal >= 0 ? ordinal : properties.indexOf(property));
+    }
+
+    /** Returns the first selected ordinal greater than or equal to {@code from}, or -1 if there is none. */
+    public int nextOrdinal(int from) {
+        if (from < 0) from = 0;
+        int word = from >>> 6;
+        if (word >= bits.length) return -1;
+        long current = bits[word] & -1L << from;
+        for (; ; ) {
+            if (current != 0) return (word << 6) + Long.numberOfTrailingZeros(current);
+            if (++word == bits.length) return -1;
+            current = bits[word];
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (long word : bits) size += Long.bitCount(word);
+        return size;
+    }
+
+    public boolean isEmpty() {
+        for (long word : bits) if (word != 0) return false;
+        return true;
+    }
+
+    public PropertyMask<T> with(PropertyQualifier<T, ?> property) {
+        PropertyMask<T> out = copy();
+        out.set(ordinal(property));
+        return out;
+    }
+
+    public PropertyMask<T> without(PropertyQualifier<T, ?> property) {
+        int ordinal = ordinal(property);
+        PropertyMask<T> out = copy();
+        out.bits[ordinal >>> 6] &= ~(1L << ordinal);
+        return out;
+    }
+
+    public PropertyMask<T> union(PropertyMask<T> other) {
+        long[] bits = compatible(other).clone();
+        for (int i = 0; i < bits.length; i++) bits[i] |= this.bits[i];
+        return new PropertyMask<>(properties, bits);
+    }
+
+    public PropertyMask<T> intersection(PropertyMask<T> other) {
+        long[] bits = compatible(other).clone();
+        for (int i = 0; i < bits.length; i++) bits[i] &= this.bits[i];
+        return new PropertyMask<>(properties, bits);
+    }
+
+    public PropertyMask<T> difference(PropertyMask<T> other) {
+        long[] others = compatible(other), bits = this.bits.clone();
+        for (int i = 0; i < bits.length; i++) bits[i] &= ~others[i];
+        return new PropertyMask<>(properties, bits);
+    }
+
+    public PropertyMask<T> complement() {
+        long[] bits = new long[this.bits.length];
+        for (int i = 0; i < bits.length; i++) bits[i] = ~this.bits[i];
+        int tail = properties.size() & 63;
+        if (tail != 0) bits[bits.length - 1] &= (1L << tail) - 1;
+        return new PropertyMask<>(properties, bits);
+    }
+
+    /** Packs the selected values of a full row (see {@link Qualifier#readRow}) into {@code out}, returning it. */
+    public Object[] project(Object[] row, Object[] out) {
+        int j = 0;
+        for (int i = nextOrdinal(0); i >= 0; i = nextOrdinal(i + 1)) out[j++] = row[i];
+        return out;
+    }
+
+    /** Copies the selected readable and writable properties from one bean to another. */
+    @SuppressWarnings("unchecked")
+    public void copy(T from, T to) {
+        for (int i = nextOrdinal(0); i >= 0; i = nextOrdinal(i + 1)) {
+            PropertyQualifier<T, ?> property = properties.get(i);
+            if (!property.isReadable() || !property.isWritable()) continue;
+            Function<T, Object> getter = (Function<T, Object>) property.getGetter();
+            ((BiConsumer<T, Object>) property.getSetter()).accept(to, getter.apply(from));
+        }
+    }
+
+    /** Returns the selected properties, in ordinal order. */
+    public List<PropertyQualifier<T, ?>> toList() {
+        List<PropertyQualifier<T, ?>> out = new ArrayList<>(size());
+        for (PropertyQualifier<T, ?> property : this) out.add(property);
+        return out;
+    }
+
+    @Override public Iterator<PropertyQualifier<T, ?>> iterator() {
+        return new Iterator<PropertyQualifier<T, ?>>() {
+            int next = nextOrdinal(0);
+
+            @Override public boolean hasNext() { return next >= 0; }
+
+            @Override public PropertyQualifier<T, ?> next() {
+                if (next < 0) throw new NoSuchElementException();
+                PropertyQualifier<T, ?> property = properties.get(next);
+                next = nextOrdinal(next + 1);
+                return property;
+            }
+        };
+    }
+
+    @Override public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PropertyMask)) return false;
+        PropertyMask<?> that = (PropertyMask<?>) o;
+        return Arrays.equals(bits, that.bits) && properties.equals(that.properties);
+    }
+
+    @Override public int hashCode() { return Arrays.hashCode(bits); }
+
+    @Override public String toString() {
+        StringBuilder out = new StringBuilder("[");
+        for (PropertyQualifier<T, ?> p : this) out.append(out.length() > 1 ? ", " : "").append(p.getName());
+        return out.append("]").toString();
+    }
+
+    private void set(int ordinal) { bits[ordinal >>> 6] |= 1L << ordinal; }
+
+    private PropertyMask<T> copy() { return new PropertyMask<>(properties, bits.clone()); }
+
+    private int ordinal(PropertyQualifier<T, ?> property) {
+        int ordinal = property.getPropertyOrdinal();
+        if (ordinal < 0 || ordinal >= properties.size()) ordinal = properties.indexOf(property);
+        if (ordinal < 0) throw new IllegalArgumentException("not a bean property " + property.getPath());
+        return ordinal;
+    }
+
+    private long[] compatible(PropertyMask<T> other) {
+        if (other.properties != properties && !other.properties.equals(properties)) {
+            throw new IllegalArgumentException("masks of different beans");
+        }
+        return other.bits;
+    }
+
+    private static <T> List<PropertyQualifier<T, ?>> propertiesOf(Qualifier<T> bean) {
+        Collection<PropertyQualifier<T, ?>> properties = bean.getProperties();
+        return properties instanceof List ? (List<PropertyQualifier<T, ?>>) properties : new ArrayList<>(properties);
+    }
+}
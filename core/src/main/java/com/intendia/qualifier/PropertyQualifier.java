@@ -1,12 +1,23 @@
 package com.intendia.qualifier;
 
-import static java.util.Objects.requireNonNull;
-
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -21,14 +32,33 @@ public interface PropertyQualifier<T, V> extends Qualifier<V> {
     String PROPERTY_GETTER_KEY = "property.getter";
     String PROPERTY_SETTER_KEY = "property.setter";
     String PROPERTY_COMPARATOR_KEY = "property.comparator";
+    String PROPERTY_ORDINAL_KEY = "property.ordinal";
+    String PROPERTY_INT_GETTER_KEY = "property.intGetter";
+    String PROPERTY_LONG_GETTER_KEY = "property.longGetter";
+    String PROPERTY_DOUBLE_GETTER_KEY = "property.doubleGetter";
+    String PROPERTY_BOOLEAN_GETTER_KEY = "property.booleanGetter";
+    String PROPERTY_INT_SETTER_KEY = "property.intSetter";
+    String PROPERTY_LONG_SETTER_KEY = "property.longSetter";
+    String PROPERTY_DOUBLE_SETTER_KEY = "property.doubleSetter";
     Extension<String> PROPERTY_NAME = Extension.key(PROPERTY_NAME_KEY);
     Extension<String> PROPERTY_PATH = Extension.key(PROPERTY_PATH_KEY);
     Extension<Function<?, ?>> PROPERTY_GETTER = Extension.key(PROPERTY_GETTER_KEY);
     Extension<BiConsumer<?, ?>> PROPERTY_SETTER = Extension.key(PROPERTY_SETTER_KEY);
     Extension<Comparator<?>> PROPERTY_COMPARATOR = Extension.key(PROPERTY_COMPARATOR_KEY);
+    Extension<Integer> PROPERTY_ORDINAL = Extension.key(PROPERTY_ORDINAL_KEY);
+    Extension<ToIntFunction<?>> PROPERTY_INT_GETTER = Extension.key(PROPERTY_INT_GETTER_KEY);
+    Extension<ToLongFunction<?>> PROPERTY_LONG_GETTER = Extension.key(PROPERTY_LONG_GETTER_KEY);
+    Extension<ToDoubleFunction<?>> PROPERTY_DOUBLE_GETTER = Extension.key(PROPERTY_DOUBLE_GETTER_KEY);
+    Extension<Predicate<?>> PROPERTY_BOOLEAN_GETTER = Extension.key(PROPERTY_BOOLEAN_GETTER_KEY);
+    Extension<ObjIntConsumer<?>> PROPERTY_INT_SETTER = Extension.key(PROPERTY_INT_SETTER_KEY);
+    Extension<ObjLongConsumer<?>> PROPERTY_LONG_SETTER = Extension.key(PROPERTY_LONG_SETTER_KEY);
+    Extension<ObjDoubleConsumer<?>> PROPERTY_DOUBLE_SETTER = Extension.key(PROPERTY_DOUBLE_SETTER_KEY);
 
     default String getName() { return data(PROPERTY_NAME, ""); }
     
+    /** Dense index of this property in its bean {@link #getProperties()}, or -1 if this is not a bean property. */
+    default int getPropertyOrdinal() { return data(PROPERTY_ORDINAL, -1); }
+
     default String getPath() { return data(PROPERTY_PATH, (Supplier<String>) this::getName); }
 
     /** @throws RuntimeException if not {@link #isReadable()} */
@@ -41,18 +71,86 @@ public interface PropertyQualifier<T, V> extends Qualifier<V> {
 
     default Boolean isWritable() { return data(PROPERTY_SETTER) != null; }
 
+    /** Unboxed getter of primitive properties (hidden by getter overrides), otherwise adapts {@link #getGetter()}. */
+    default ToIntFunction<T> getIntGetter() {
+        ToIntFunction<T> getter = data(PROPERTY_INT_GETTER.as());
+        if (getter != null) return getter;
+        Function<T, V> boxed = getGetter();
+        return t -> ((Number) boxed.apply(t)).intValue();
+    }
+
+    /** Unboxed getter of primitive properties (hidden by getter overrides), otherwise adapts {@link #getGetter()}. */
+    default ToLongFunction<T> getLongGetter() {
+        ToLongFunction<T> getter = data(PROPERTY_LONG_GETTER.as());
+        if (getter != null) return getter;
+        Function<T, V> boxed = getGetter();
+        return t -> ((Number) boxed.apply(t)).longValue();
+    }
+
+    /** Unboxed getter of primitive properties (hidden by getter overrides), otherwise adapts {@link #getGetter()}. */
+    default ToDoubleFunction<T> getDoubleGetter() {
+        ToDoubleFunction<T> getter = data(PROPERTY_DOUBLE_GETTER.as());
+        if (getter != null) return getter;
+        Function<T, V> boxed = getGetter();
+        return t -> ((Number) boxed.apply(t)).doubleValue();
+    }
+
+    /** Unboxed getter of primitive properties (hidden by getter overrides), otherwise adapts {@link #getGetter()}. */
+    default Predicate<T> getBooleanGetter() {
+        Predicate<T> getter = data(PROPERTY_BOOLEAN_GETTER.as());
+        if (getter != null) return getter;
+        Function<T, V> boxed = getGetter();
+        return t -> (Boolean) boxed.apply(t);
+    }
+
+    /** Unboxed setter of primitive properties, otherwise adapts {@link #getSetter()} boxing the value. */
+    @SuppressWarnings("unchecked")
+    default ObjIntConsumer<T> getIntSetter() {
+        ObjIntConsumer<T> setter = data(PROPERTY_INT_SETTER.as());
+        if (setter != null) return setter;
+        BiConsumer<T, Object> boxed = (BiConsumer<T, Object>) getSetter();
+        return (t, v) -> boxed.accept(t, v);
+    }
+
+    /** Unboxed setter of primitive properties, otherwise adapts {@link #getSetter()} boxing the value. */
+    @SuppressWarnings("unchecked")
+    default ObjLongConsumer<T> getLongSetter() {
+        ObjLongConsumer<T> setter = data(PROPERTY_LONG_SETTER.as());
+        if (setter != null) return setter;
+        BiConsumer<T, Object> boxed = (BiConsumer<T, Object>) getSetter();
+        return (t, v) -> boxed.accept(t, v);
+    }
+
+    /** Unboxed setter of primitive properties, otherwise adapts {@link #getSetter()} boxing the value. */
+    @SuppressWarnings("unchecked")
+    default ObjDoubleConsumer<T> getDoubleSetter() {
+        ObjDoubleConsumer<T> setter = data(PROPERTY_DOUBLE_SETTER.as());
+        if (setter != null) return setter;
+        BiConsumer<T, Object> boxed = (BiConsumer<T, Object>) getSetter();
+        return (t, v) -> boxed.accept(t, v);
+    }
+
+    /**
+     * Returns the property comparator. If not defined, primitive properties using the natural order compare through
+     * its unboxed getter (primitives cannot be null), otherwise the getter results are compared by the type comparator.
+     */
     default Comparator<T> getPropertyComparator() {
         //noinspection Convert2Lambda IGP-1732 GWT optimize incompatible
         return data(PROPERTY_COMPARATOR.as(), new Supplier<Comparator<T>>() {
             @Override public Comparator<T> get() {
-                return orderingOnResultOf(getGetter());
+                Comparator<T> primitive = getTypeComparator() == Defaults.NATURAL_COMPARATOR
+                        ? Defaults.primitiveComparator(PropertyQualifier.this) : null;
+                return primitive != null ? primitive : orderingOnResultOf(getGetter());
             }
         });
     }
 
-    /** Traverse a qualifier returning a new qualifier which has source type this and value type property. */
+    /**
+     * Traverse a qualifier returning a qualifier which has source type this and value type property. Compositions are
+     * canonical, composing the same qualifiers returns the same (cached) instance and compositions have value equality.
+     */
     default <U> PropertyQualifier<T, U> compose(PropertyQualifier<? super V, U> property) {
-        return new CompositionPropertyQualifier<>(this, property);
+        return CompositionPropertyQualifier.of(this, property);
     }
 
     default @Nullable PropertyQualifier<T, ?> compose(String name) {
@@ -60,6 +158,20 @@ public interface PropertyQualifier<T, V> extends Qualifier<V> {
         return property == null ? null : compose(property);
     }
 
+    @Override default PropertyQualifier<T, V> materialize() { return new FrozenPropertyQualifier<>(this); }
+
+    @Override default PropertyQualifier<T, V> with(String key, @Nullable Object value) {
+        return new LayerPropertyQualifier<>(this, ExtensionRegistry.ordinal(key), value);
+    }
+
+    @Override default <X> PropertyQualifier<T, V> with(Extension<X> key, @Nullable X value) {
+        return with(key.getKey(), value);
+    }
+
+    @Override default PropertyQualifier<T, V> scoped(Function<? super Metadata, ? extends Metadata> scope) {
+        return new ScopedPropertyQualifier<>(this, scope);
+    }
+
     default PropertyQualifier<T, V> overrideProperty() {
         return PropertyQualifier.unchecked(override());
     }
@@ -70,20 +182,55 @@ public interface PropertyQualifier<T, V> extends Qualifier<V> {
 
     @SuppressWarnings("unchecked")
     static <T, V> PropertyQualifier<T, V> unchecked(Metadata q) {
-        return q instanceof PropertyQualifier ? (PropertyQualifier<T, V>) q : q::data;
+        if (q instanceof PropertyQualifier) return (PropertyQualifier<T, V>) q;
+        return q.view(ForwardingPropertyQualifier.class, ForwardingPropertyQualifier::new);
     }
 
-    static <V> PropertyQualifier<?, V> of(Qualifier<V> q) {
-        return q instanceof PropertyQualifier ? (PropertyQualifier<?, V>) q : q::data;
-    }
+    static <V> PropertyQualifier<?, V> of(Qualifier<V> q) { return unchecked(q); }
 
     static <V> PropertyQualifier<V, V> asProperty(Qualifier<V> q) { return new IdentityPropertyQualifier<>(q); }
 }
 
+class FrozenPropertyQualifier<T, V> extends FrozenQualifier<V> implements PropertyQualifier<T, V> {
+    FrozenPropertyQualifier(Metadata source) { super(source); }
+
+    @Override public PropertyQualifier<T, V> materialize() { return this; }
+}
+
+class LayerPropertyQualifier<T, V> extends LayerQualifier<V> implements PropertyQualifier<T, V> {
+    LayerPropertyQualifier(Metadata parent, int ordinal, @Nullable Object value) { super(parent, ordinal, value); }
+
+    LayerPropertyQualifier(Metadata parent, int[] ordinals, Object[] values) { super(parent, ordinals, values); }
+
+    @Override LayerMetadata layer(int[] ordinals, Object[] values) {
+        return new LayerPropertyQualifier<T, V>(parent, ordinals, values);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override public PropertyQualifier<T, V> with(String key, @Nullable Object value) {
+        return (PropertyQualifier<T, V>) with(ExtensionRegistry.ordinal(key), value);
+    }
+}
+
+class ScopedPropertyQualifier<T, V> extends ScopedQualifier<V> implements PropertyQualifier<T, V> {
+    ScopedPropertyQualifier(PropertyQualifier<T, V> parent, Function<? super Metadata, ? extends Metadata> scope) {
+        super(parent, scope);
+    }
+}
+
+class ForwardingPropertyQualifier<T, V> extends ForwardingQualifier<V> implements PropertyQualifier<T, V> {
+    ForwardingPropertyQualifier(Metadata delegate) { super(delegate); }
+}
+
 class IdentityPropertyQualifier<X> implements PropertyQualifier<X, X> {
+    private static final String[] KEYS = { PROPERTY_GETTER_KEY, PROPERTY_COMPARATOR_KEY };
     private final Qualifier<X> f;
+    private final MergedKeys keys = new MergedKeys(KEYS);
 
-    IdentityPropertyQualifier(Qualifier<X> f) { this.f = f; }
+    IdentityPropertyQualifier(Qualifier<X> f) {
+        this.f = f;
+        keys.get(f);
+    }
 
     @Override public @Nullable Object data(@Nonnull String key) {
         switch (key) {
@@ -93,6 +240,22 @@ class IdentityPropertyQualifier<X> implements PropertyQualifier<X, X> {
         }
     }
 
+    @Override public @Nullable Object data(int ordinal) {
+        if (ordinal == PROPERTY_GETTER.getOrdinal()) return getGetter();
+        if (ordinal == PROPERTY_COMPARATOR.getOrdinal()) return getPropertyComparator();
+        return f.data(ordinal);
+    }
+
+    @Override public String[] keys() { return keys.get(f); }
+
+    @Override public void forEach(BiConsumer<String, Object> action) {
+        action.accept(PROPERTY_GETTER_KEY, getGetter());
+        action.accept(PROPERTY_COMPARATOR_KEY, getPropertyComparator());
+        f.forEach((key, value) -> {
+            if (!PROPERTY_GETTER_KEY.equals(key) && !PROPERTY_COMPARATOR_KEY.equals(key)) action.accept(key, value);
+        });
+    }
+
     @Override public Function<X, X> getGetter() { return Function.identity(); }
 
     @Override public Comparator<X> getPropertyComparator() { return f.getTypeComparator(); }
@@ -103,37 +266,61 @@ class IdentityPropertyQualifier<X> implements PropertyQualifier<X, X> {
  * Z. The resulting composite function is denoted g ∘ f : X → Z and has the qualifier type Z.
  */
 class CompositionPropertyQualifier<X, Y, Z> implements PropertyQualifier<X, Z> {
+    /** Compositions of the generated properties, shared compositions cache their own compositions (deeper paths). */
+    private static final Map<PropertyQualifier<?, ?>, Compositions> roots = new ConcurrentHashMap<>();
     private final PropertyQualifier<X, Y> f;
     private final PropertyQualifier<? super Y, Z> g;
-    private final Function<X, Z> getter;
-    private final BiConsumer<X, Z> setter;
+    private final boolean immutable; // all the segments are immutable, so accessors are resolved once
+    private final boolean shared; // all the segments are generated, so this is the canonical composition
+    private final @Nullable Function<X, Z> getter;
+    private final @Nullable BiConsumer<X, Z> setter;
+    private final PropertyQualifier<?, ?>[] path;
+    private final MergedKeys keys;
+    private final int hash;
+    private final Compositions compositions = new Compositions();
+    private @Nullable String pathName;
+    private @Nullable Comparator<X> comparator;
+
+    /**
+     * Returns the composition of f and g. Compositions of generated (static) properties are canonical, they are cached
+     * by f, on f itself if it is a composition, so resolving a dotted path reads one lock-free cache per segment.
+     * Any other composition is created fresh, so the cache never retains short-lived or mutable qualifiers.
+     */
+    static <X, Y, Z> CompositionPropertyQualifier<X, Y, Z> of(
+            PropertyQualifier<X, Y> f, PropertyQualifier<? super Y, Z> g) {
+        if (!isShared(f) || !isShared(g)) return new CompositionPropertyQualifier<>(f, g);
+        if (f instanceof CompositionPropertyQualifier) {
+            return ((CompositionPropertyQualifier<?, ?, ?>) f).compositions.get(f, g);
+        }
+        Compositions compositions = roots.get(f);
+        if (compositions == null) {
+            Compositions previous = roots.putIfAbsent(f, compositions = new Compositions());
+            if (previous != null) compositions = previous;
+        }
+        return compositions.get(f, g);
+    }
 
     CompositionPropertyQualifier(PropertyQualifier<X, Y> f, PropertyQualifier<? super Y, Z> g) {
         this.f = f;
         this.g = g;
 
-        if (f.isReadable() && g.isReadable()) {
-            Function<X, Y> fGetter = f.getGetter();
-            Function<? super Y, Z> gGetter = g.getGetter();
-            this.getter = x -> {
-                Y y = fGetter.apply(x);
-                return y == null ? null : gGetter.apply(y);
-            };
-        } else {
-            this.getter = null;
-        }
+        // nested compositions are flattened, so a deep path is read by a single loop over the leaf getters
+        PropertyQualifier<?, ?>[] path = concat(path(f), path(g));
+        PropertyQualifier<?, ?> leaf = path[path.length - 1];
+        this.path = path;
+        this.immutable = isImmutable(f) && isImmutable(g);
+        this.shared = isShared(f) && isShared(g);
+        // mutable segments (overrides) may change their accessors, so those are resolved on each read
+        this.getter = immutable ? getter(path) : null;
+        this.setter = immutable ? setter(path) : null;
 
-        if (f.isReadable() && g.isWritable()) {
-            BiConsumer<? super Y, Z> gSetter = g.getSetter();
-            Function<X, Y> fGetter = f.getGetter();
-            this.setter = (x, z) -> {
-                Y y = requireNonNull(fGetter.apply(x), "property " + f.getType() + "." + f.getName() + " required "
-                        + "to set composed property " + g.getType() + "." + g.getName());
-                gSetter.accept(y, z);
-            };
-        } else {
-            this.setter = null;
-        }
+        List<String> keys = new ArrayList<>();
+        Collections.addAll(keys, PROPERTY_NAME_KEY, CORE_TYPE_KEY, CORE_GENERICS_KEY, PROPERTY_PATH_KEY);
+        if (isReadable(path, path.length)) Collections.addAll(keys, PROPERTY_GETTER_KEY, PROPERTY_COMPARATOR_KEY);
+        if (isReadable(path, path.length - 1) && leaf.isWritable()) keys.add(PROPERTY_SETTER_KEY);
+        this.keys = new MergedKeys(keys.toArray(NO_KEYS));
+        this.keys.get(g);
+        this.hash = 31 * f.hashCode() + g.hashCode();
     }
 
     @Override public @Nullable Object data(@Nonnull String key) {
@@ -142,26 +329,211 @@ class CompositionPropertyQualifier<X, Y, Z> implements PropertyQualifier<X, Z> {
             case CORE_TYPE_KEY: return getType();
             case CORE_GENERICS_KEY: return getGenerics();
             case PROPERTY_PATH_KEY: return getPath();
-            case PROPERTY_GETTER_KEY: return getter;
-            case PROPERTY_SETTER_KEY: return setter;
+            case PROPERTY_GETTER_KEY: return immutable ? getter : getter(path);
+            case PROPERTY_SETTER_KEY: return immutable ? setter : setter(path);
             case PROPERTY_COMPARATOR_KEY: return getPropertyComparator();
-            default: return g.data(key);
+            case PROPERTY_ORDINAL_KEY: return null;
+            default: return isLeafAccessor(key) ? null : g.data(key);
         }
     }
 
+    @Override public @Nullable Object data(int ordinal) {
+        if (ordinal == PROPERTY_NAME.getOrdinal()) return getName();
+        if (ordinal == CORE_TYPE.getOrdinal()) return getType();
+        if (ordinal == CORE_GENERICS.getOrdinal()) return getGenerics();
+        if (ordinal == PROPERTY_PATH.getOrdinal()) return getPath();
+        if (ordinal == PROPERTY_GETTER.getOrdinal()) return immutable ? getter : getter(path);
+        if (ordinal == PROPERTY_SETTER.getOrdinal()) return immutable ? setter : setter(path);
+        if (ordinal == PROPERTY_COMPARATOR.getOrdinal()) return getPropertyComparator();
+        if (ordinal == PROPERTY_ORDINAL.getOrdinal()) return null;
+        return isLeafAccessor(ordinal) ? null : g.data(ordinal);
+    }
+
+    @Override public String[] keys() { return keys.get(g); }
+
+    @Override public void forEach(BiConsumer<String, Object> action) {
+        for (String key : keys.own()) {
+            Object value = data(key);
+            if (value != null) action.accept(key, value);
+        }
+        g.forEach((key, value) -> {
+            if (!isComposed(key)) action.accept(key, value);
+        });
+    }
+
+    /** Whether the key is resolved by the composition itself instead of being delegated to g. */
+    private static boolean isComposed(String key) {
+        switch (key) {
+            case PROPERTY_NAME_KEY:
+            case CORE_TYPE_KEY:
+            case CORE_GENERICS_KEY:
+            case PROPERTY_PATH_KEY:
+            case PROPERTY_GETTER_KEY:
+            case PROPERTY_SETTER_KEY:
+            case PROPERTY_COMPARATOR_KEY:
+            case PROPERTY_ORDINAL_KEY: return true;
+            default: return isLeafAccessor(key);
+        }
+    }
+
+    /** Whether the key is a g accessor which does not apply to the composed bean type X. */
+    private static boolean isLeafAccessor(String key) {
+        switch (key) {
+            case PROPERTY_INT_GETTER_KEY:
+            case PROPERTY_LONG_GETTER_KEY:
+            case PROPERTY_DOUBLE_GETTER_KEY:
+            case PROPERTY_BOOLEAN_GETTER_KEY:
+            case PROPERTY_INT_SETTER_KEY:
+            case PROPERTY_LONG_SETTER_KEY:
+            case PROPERTY_DOUBLE_SETTER_KEY: return true;
+            default: return false;
+        }
+    }
+
+    private static boolean isLeafAccessor(int ordinal) {
+        return ordinal == PROPERTY_INT_GETTER.getOrdinal() || ordinal == PROPERTY_LONG_GETTER.getOrdinal()
+                || ordinal == PROPERTY_DOUBLE_GETTER.getOrdinal() || ordinal == PROPERTY_BOOLEAN_GETTER.getOrdinal()
+                || ordinal == PROPERTY_INT_SETTER.getOrdinal() || ordinal == PROPERTY_LONG_SETTER.getOrdinal()
+                || ordinal == PROPERTY_DOUBLE_SETTER.getOrdinal();
+    }
+
+    @Override public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompositionPropertyQualifier)) return false;
+        CompositionPropertyQualifier<?, ?, ?> that = (CompositionPropertyQualifier<?, ?, ?>) o;
+        return hash == that.hash && f.equals(that.f) && g.equals(that.g);
+    }
+
+    @Override public int hashCode() { return hash; }
+
     @Override public String getName() { return g.getName(); }
 
     @Override public Class<Z> getType() { return g.getType(); }
 
-    @Override public String getPath() { return f.getPath() + "." + g.getPath(); }
+    @Override public String getPath() {
+        if (!immutable) return f.getPath() + "." + g.getPath();
+        String pathName = this.pathName;
+        if (pathName == null) this.pathName = pathName = f.getPath() + "." + g.getPath();
+        return pathName;
+    }
 
     @Override public Class<?>[] getGenerics() { return g.getGenerics(); }
 
     @Override public Comparator<X> getPropertyComparator() {
-        Function<X, Y> fGetter = f.getGetter();
-        Comparator<? super Y> gPropertyComparator = g.getPropertyComparator();
-        return (o1, o2) -> gPropertyComparator.compare(
-                o1 == null ? null : fGetter.apply(o1),
-                o2 == null ? null : fGetter.apply(o2));
+        Comparator<X> comparator = this.comparator;
+        if (comparator == null) {
+            Function<X, Y> fGetter = f.getGetter();
+            Comparator<? super Y> gPropertyComparator = g.getPropertyComparator();
+            comparator = (o1, o2) -> gPropertyComparator.compare(
+                    o1 == null ? null : fGetter.apply(o1),
+                    o2 == null ? null : fGetter.apply(o2));
+            if (immutable) this.comparator = comparator;
+        }
+        return comparator;
+    }
+
+    /** Whether the accessors of q never change, i.e. generated, frozen or compositions of those. */
+    private static boolean isImmutable(PropertyQualifier<?, ?> q) {
+        return q instanceof StaticQualifier || q instanceof FrozenMetadata
+                || q instanceof CompositionPropertyQualifier && ((CompositionPropertyQualifier<?, ?, ?>) q).immutable;
+    }
+
+    /** Whether q lives as long as its metamodel, so its compositions can be cached, see {@link #of}. */
+    private static boolean isShared(PropertyQualifier<?, ?> q) {
+        return q instanceof StaticQualifier
+                || q instanceof CompositionPropertyQualifier && ((CompositionPropertyQualifier<?, ?, ?>) q).shared;
+    }
+
+    private static @Nullable <X, Z> Function<X, Z> getter(PropertyQualifier<?, ?>[] path) {
+        return isReadable(path, path.length) ? pathGetter(getters(path, path.length)) : null;
+    }
+
+    private static @Nullable <X, Z> BiConsumer<X, Z> setter(PropertyQualifier<?, ?>[] path) {
+        PropertyQualifier<?, ?> leaf = path[path.length - 1];
+        return isReadable(path, path.length - 1) && leaf.isWritable()
+                ? pathSetter(path, getters(path, path.length - 1), leaf.getSetter()) : null;
+    }
+
+    private static PropertyQualifier<?, ?>[] path(PropertyQualifier<?, ?> q) {
+        return q instanceof CompositionPropertyQualifier ? ((CompositionPropertyQualifier<?, ?, ?>) q).path
+                : new PropertyQualifier<?, ?>[] { q };
+    }
+
+    private static PropertyQualifier<?, ?>[] concat(PropertyQualifier<?, ?>[] a, PropertyQualifier<?, ?>[] b) {
+        PropertyQualifier<?, ?>[] out = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+        return out;
+    }
+
+    private static boolean isReadable(PropertyQualifier<?, ?>[] path, int length) {
+        for (int i = 0; i < length; i++) if (!path[i].isReadable()) return false;
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object>[] getters(PropertyQualifier<?, ?>[] path, int length) {
+        Function<Object, Object>[] getters = new Function[length];
+        for (int i = 0; i < length; i++) getters[i] = (Function<Object, Object>) path[i].getGetter();
+        return getters;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <X, Z> Function<X, Z> pathGetter(Function<Object, Object>[] getters) {
+        return x -> {
+            Object value = getters[0].apply(x);
+            for (int i = 1; value != null && i < getters.length; i++) value = getters[i].apply(value);
+            return (Z) value;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <X, Z> BiConsumer<X, Z> pathSetter(PropertyQualifier<?, ?>[] path,
+            Function<Object, Object>[] getters, BiConsumer<?, ?> leafSetter) {
+        BiConsumer<Object, Z> setter = (BiConsumer<Object, Z>) leafSetter;
+        return (x, z) -> {
+            Object value = x;
+            for (int i = 0; i < getters.length; i++) {
+                value = getters[i].apply(value);
+                if (value == null) throw new NullPointerException(requiredMessage(path, i));
+            }
+            setter.accept(value, z);
+        };
+    }
+
+    private static String requiredMessage(PropertyQualifier<?, ?>[] path, int index) {
+        PropertyQualifier<?, ?> required = path[index], leaf = path[path.length - 1];
+        return "property " + required.getType() + "." + required.getName() + " required "
+                + "to set composed property " + leaf.getType() + "." + leaf.getName();
+    }
+}
+
+/** Copy-on-write cache of the compositions of a property f, keyed by g. */
+final class Compositions {
+    private static final int MAX_SIZE = 256;
+    private static final Object[] EMPTY = new Object[0];
+    private volatile Object[] entries = EMPTY; // g, composition pairs
+
+    @SuppressWarnings("unchecked")
+    <X, Y, Z> CompositionPropertyQualifier<X, Y, Z> get(PropertyQualifier<X, Y> f, PropertyQualifier<? super Y, Z> g) {
+        Object cached = find(entries, g);
+        if (cached != null) return (CompositionPropertyQualifier<X, Y, Z>) cached;
+        CompositionPropertyQualifier<X, Y, Z> composition = new CompositionPropertyQualifier<>(f, g);
+        synchronized (this) {
+            Object[] entries = this.entries;
+            cached = find(entries, g);
+            if (cached != null) return (CompositionPropertyQualifier<X, Y, Z>) cached;
+            if (entries.length < 2 * MAX_SIZE) {
+                entries = Arrays.copyOf(entries, entries.length + 2);
+                entries[entries.length - 2] = g;
+                entries[entries.length - 1] = composition;
+                this.entries = entries;
+            }
+        }
+        return composition;
+    }
+
+    private static @Nullable Object find(Object[] entries, Object g) {
+        for (int i = 0; i < entries.length; i += 2) if (entries[i] == g || entries[i].equals(g)) return entries[i + 1];
+        return null;
     }
 }
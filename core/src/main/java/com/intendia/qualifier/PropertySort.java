@@ -0,0 +1,262 @@
+package com.intendia.qualifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Key-extracting sort of beans by a {@link SortSpec} (decorate-sort-undecorate). The sort keys of each bean are read
+ * once (primitive keys as order preserving longs) so getters and composed paths run n times instead of O(n log n),
+ * then the keys are sorted with {@link Arrays#parallelSort} on the common fork-join pool (sequential for small inputs)
+ * and the beans are reordered. Sorts are stable. JVM only, this class is not part of the GWT module.
+ *
+ * <p>The {@link #top top-k} selection keeps the k first beans in a bounded heap, O(n log k) without sorting or
+ * copying the whole input. Keys are extracted into a reused entry, so only beans entering the heap allocate.
+ */
+public final class PropertySort {
+    /** Inputs from this size also extract the keys in parallel, the keys sort is always {@code parallelSort}. */
+    static final int PARALLEL_THRESHOLD = 1 << 13;
+    private static final Object[] NO_OBJECTS = {};
+
+    private PropertySort() {}
+
+    public static <T> void sort(List<T> beans, PropertyQualifier<T, ?> property) { sort(beans, SortSpec.by(property)); }
+
+    public static <T> void sort(List<T> beans, SortSpec<T> spec) {
+        @SuppressWarnings("unchecked") T[] array = (T[]) beans.toArray();
+        sort(array, spec);
+        ListIterator<T> it = beans.listIterator();
+        for (T bean : array) { it.next(); it.set(bean); }
+    }
+
+    public static <T> void sort(T[] beans, SortSpec<T> spec) {
+        int n = beans.length;
+        if (n < 2) return;
+        SortSpec.Key<T>[] keys = spec.keys();
+        if (keys.length == 1 && (keys[0].kind == SortSpec.Kind.INT || keys[0].kind == SortSpec.Kind.BOOLEAN)) {
+            sortPacked(beans, keys[0]);
+        } else {
+            sortDecorated(beans, keys);
+        }
+    }
+
+    /** Returns the first {@code k} beans in the sort order, same as a stable sort followed by a sublist. */
+    public static <T> List<T> top(Iterable<? extends T> beans, SortSpec<T> spec, int k) {
+        if (k <= 0) return Collections.emptyList();
+        TopHeap<T> heap = new TopHeap<>(spec.keys(), k);
+        int i = 0;
+        for (T bean : beans) heap.offer(bean, i++);
+        return heap.sorted();
+    }
+
+    /** Same as {@link #top}, large inputs are split in chunks selected on the fork-join pool and merged. */
+    public static <T> List<T> parallelTop(List<? extends T> beans, SortSpec<T> spec, int k) {
+        int n = beans.size();
+        if (k <= 0 || n < PARALLEL_THRESHOLD) return top(beans, spec, k);
+        List<? extends T> list = beans instanceof RandomAccess ? beans : new ArrayList<>(beans);
+        SortSpec.Key<T>[] keys = spec.keys();
+        int chunks = Math.min(n / (PARALLEL_THRESHOLD / 2), ForkJoinPool.getCommonPoolParallelism() * 4);
+        int chunk = (n + chunks - 1) / chunks;
+        return IntStream.range(0, chunks).parallel().mapToObj(c -> {
+            TopHeap<T> heap = new TopHeap<>(keys, k);
+            for (int i = c * chunk, end = Math.min(n, i + chunk); i < end; i++) heap.offer(list.get(i), i);
+            return heap;
+        }).reduce(TopHeap::merge).orElseThrow(IllegalStateException::new).sorted();
+    }
+
+    /** Single 32 bits key, packed with the bean index into a long so the sort runs on a primitive array. */
+    private static <T> void sortPacked(T[] beans, SortSpec.Key<T> key) {
+        long[] packed = new long[beans.length];
+        setAll(packed, i -> (long) encodeInt(key, beans[i]) << 32 | i);
+        Arrays.parallelSort(packed);
+        Object[] source = beans.clone();
+        for (int i = 0; i < packed.length; i++) beans[i] = cast(source[(int) packed[i]]);
+    }
+
+    private static <T> void sortDecorated(T[] beans, SortSpec.Key<T>[] keys) {
+        int primitives = 0;
+        for (SortSpec.Key<T> key : keys) if (isPrimitive(key)) primitives++;
+        int longs = primitives, objects = keys.length - primitives;
+        Decorated[] decorated = new Decorated[beans.length];
+        setAll(decorated, i -> decorate(beans[i], keys, longs, objects));
+        Arrays.parallelSort(decorated, comparator(keys));
+        for (int i = 0; i < decorated.length; i++) beans[i] = cast(decorated[i].bean);
+    }
+
+    private static <T> Decorated decorate(T bean, SortSpec.Key<T>[] keys, int longs, int objects) {
+        return decorate(new Decorated(new long[longs], objects == 0 ? NO_OBJECTS : new Object[objects]), bean, keys);
+    }
+
+    private static <T> Decorated decorate(Decorated out, T bean, SortSpec.Key<T>[] keys) {
+        out.bean = bean;
+        int l = 0, o = 0;
+        for (SortSpec.Key<T> key : keys) {
+            if (isPrimitive(key)) out.longs[l++] = encode(key, bean);
+            else out.objects[o++] = key.kind == SortSpec.Kind.PROPERTY ? bean : key.getter.apply(bean);
+        }
+        return out;
+    }
+
+    private static <T> Comparator<Decorated> comparator(SortSpec.Key<T>[] keys) {
+        return (a, b) -> {
+            int l = 0, o = 0;
+            for (SortSpec.Key<T> key : keys) {
+                int c;
+                if (isPrimitive(key)) {
+                    c = Long.compare(a.longs[l], b.longs[l]);
+                    l++;
+                } else {
+                    Object x = a.objects[o], y = b.objects[o];
+                    o++;
+                    if (key.descending) { Object t = x; x = y; y = t; }
+                    if (key.kind == SortSpec.Kind.PROPERTY) c = key.compareBeans(cast(x), cast(y));
+                    else c = key.compareValues(x, y);
+                }
+                if (c != 0) return c;
+            }
+            return 0;
+        };
+    }
+
+    private static boolean isPrimitive(SortSpec.Key<?> key) {
+        switch (key.kind) {
+            case INT: case LONG: case DOUBLE: case BOOLEAN: return true;
+            default: return false;
+        }
+    }
+
+    /** Order preserving encoding of a 32 bits key, directions are applied as bitwise not (no overflow). */
+    private static <T> int encodeInt(SortSpec.Key<T> key, T bean) {
+        int v = key.kind == SortSpec.Kind.INT ? key.intGetter.applyAsInt(bean) : key.booleanGetter.test(bean) ? 1 : 0;
+        return key.descending ? ~v : v;
+    }
+
+    /** Order preserving encoding of a primitive key, doubles are ordered as {@link Double#compare}. */
+    private static <T> long encode(SortSpec.Key<T> key, T bean) {
+        long v;
+        switch (key.kind) {
+            case LONG: v = key.longGetter.applyAsLong(bean); break;
+            case DOUBLE:
+                long bits = Double.doubleToLongBits(key.doubleGetter.applyAsDouble(bean));
+                v = bits ^ (bits >> 63 & Long.MAX_VALUE);
+                break;
+            default: return encodeInt(key, bean);
+        }
+        return key.descending ? ~v : v;
+    }
+
+    private static void setAll(long[] array, IntToLongFunction fn) {
+        if (array.length >= PARALLEL_THRESHOLD) Arrays.parallelSetAll(array, fn);
+        else Arrays.setAll(array, fn);
+    }
+
+    private static <E> void setAll(E[] array, IntFunction<? extends E> fn) {
+        if (array.length >= PARALLEL_THRESHOLD) Arrays.parallelSetAll(array, fn);
+        else Arrays.setAll(array, fn);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object o) { return (T) o; }
+
+    private static final class Decorated {
+        Object bean;
+        int index; // input position, only used to break ties in top-k selections
+        final long[] longs;
+        final Object[] objects;
+
+        Decorated(long[] longs, Object[] objects) {
+            this.longs = longs;
+            this.objects = objects;
+        }
+
+        Decorated copy() {
+            Decorated out = new Decorated(longs.clone(), objects.length == 0 ? objects : objects.clone());
+            out.bean = bean;
+            out.index = index;
+            return out;
+        }
+    }
+
+    /** Bounded max-heap of the k first entries, the root is the last selected entry (first to be evicted). */
+    private static final class TopHeap<T> {
+        final SortSpec.Key<T>[] keys;
+        final Comparator<Decorated> order;
+        final Decorated scratch;
+        final int k;
+        Decorated[] heap = new Decorated[16];
+        int size;
+
+        TopHeap(SortSpec.Key<T>[] keys, int k) {
+            this.keys = keys;
+            this.k = k;
+            Comparator<Decorated> comparator = comparator(keys);
+            this.order = (a, b) -> {
+                int c = comparator.compare(a, b);
+                return c != 0 ? c : Integer.compare(a.index, b.index);
+            };
+            int longs = 0;
+            for (SortSpec.Key<T> key : keys) if (isPrimitive(key)) longs++;
+            this.scratch = new Decorated(new long[longs],
+                    keys.length == longs ? NO_OBJECTS : new Object[keys.length - longs]);
+        }
+
+        void offer(T bean, int index) {
+            decorate(scratch, bean, keys).index = index;
+            if (size == k && order.compare(scratch, heap[0]) >= 0) return; // ties lose, the root came first
+            offer(scratch.copy());
+        }
+
+        void offer(Decorated entry) {
+            if (size < k) {
+                if (size == heap.length) heap = Arrays.copyOf(heap, Math.min(k, size * 2));
+                heap[size] = entry;
+                siftUp(size++);
+            } else if (order.compare(entry, heap[0]) < 0) {
+                heap[0] = entry;
+                siftDown(0);
+            }
+        }
+
+        TopHeap<T> merge(TopHeap<T> other) {
+            for (int i = 0; i < other.size; i++) offer(other.heap[i]);
+            return this;
+        }
+
+        List<T> sorted() {
+            Decorated[] entries = Arrays.copyOf(heap, size);
+            Arrays.sort(entries, order);
+            List<T> out = new ArrayList<>(size);
+            for (Decorated entry : entries) out.add(cast(entry.bean));
+            return out;
+        }
+
+        private void siftUp(int i) {
+            Decorated entry = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (order.compare(entry, heap[parent]) <= 0) break;
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = entry;
+        }
+
+        private void siftDown(int i) {
+            Decorated entry = heap[i];
+            for (int child; (child = 2 * i + 1) < size; i = child) {
+                if (child + 1 < size && order.compare(heap[child + 1], heap[child]) > 0) child++;
+                if (order.compare(entry, heap[child]) >= 0) break;
+                heap[i] = heap[child];
+            }
+            heap[i] = entry;
+        }
+    }
+}
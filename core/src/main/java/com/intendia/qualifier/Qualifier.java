@@ -2,10 +2,18 @@ package com.intendia.qualifier;
 
 import static java.util.Collections.emptySet;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 @FunctionalInterface
@@ -15,10 +23,14 @@ public interface Qualifier<T> extends Metadata {
     String CORE_GENERICS_KEY = "core.generics";
     String CORE_PROPERTIES_KEY = "core.properties";
     String COMPARABLE_COMPARATOR_KEY = "comparable.comparator";
+    String CORE_ROW_READER_KEY = "core.rowReader";
+    String CORE_ROW_WRITER_KEY = "core.rowWriter";
     Extension<Class<?>> CORE_TYPE = Extension.key(CORE_TYPE_KEY);
     Extension<Class<?>[]> CORE_GENERICS = Extension.key(CORE_GENERICS_KEY);
     Extension<Collection<? extends PropertyQualifier<?, ?>>> CORE_PROPERTIES = Extension.key(CORE_PROPERTIES_KEY);
     Extension<Comparator<?>> COMPARABLE_COMPARATOR = Extension.key(COMPARABLE_COMPARATOR_KEY);
+    Extension<BiConsumer<?, Object[]>> CORE_ROW_READER = Extension.key(CORE_ROW_READER_KEY);
+    Extension<BiConsumer<?, Object[]>> CORE_ROW_WRITER = Extension.key(CORE_ROW_WRITER_KEY);
     Class<?>[] NO_GENERICS = new Class[0];
 
     default Class<T> getType() { return req(CORE_TYPE.as()); }
@@ -28,15 +40,39 @@ public interface Qualifier<T> extends Metadata {
     /** Return the property qualifiers of the bean qualifier. */
     default Collection<PropertyQualifier<T, ?>> getProperties() { return data(CORE_PROPERTIES.as(), emptySet()); }
 
-    default @Nullable PropertyQualifier<T, ?> getProperty(String name) {
-        if (name.isEmpty()) throw new IllegalArgumentException("not empty name required");
-        String[] split = name.split("\\.", 2);
-        for (PropertyQualifier<T, ?> property : getProperties()) {
-            if (split[0].equals(property.getName())) {
-                return split.length == 1 ? property : property.compose(split[1]);
+    /** Returns the property by name, or the composition of the properties if the name is a dotted path. */
+    default @Nullable PropertyQualifier<T, ?> getProperty(String name) { return PropertyList.resolve(this, name); }
+
+    /**
+     * Copies the readable property values of the bean into the row (sized to {@link #getProperties()}), indexed by
+     * {@link PropertyQualifier#getPropertyOrdinal() property ordinal}. Generated metamodels do it with straight-line
+     * code, otherwise each property getter is used.
+     */
+    default Object[] readRow(T bean, Object[] row) {
+        BiConsumer<T, Object[]> reader = data(CORE_ROW_READER.as());
+        if (reader != null) reader.accept(bean, row);
+        else {
+            int i = 0;
+            for (PropertyQualifier<T, ?> p : getProperties()) {
+                if (p.isReadable()) row[i] = p.getGetter().apply(bean);
+                i++;
+            }
+        }
+        return row;
+    }
+
+    /** Applies the row values to the writable properties of the bean, the inverse of {@link #readRow}. */
+    @SuppressWarnings("unchecked")
+    default void writeRow(T bean, Object[] row) {
+        BiConsumer<T, Object[]> writer = data(CORE_ROW_WRITER.as());
+        if (writer != null) writer.accept(bean, row);
+        else {
+            int i = 0;
+            for (PropertyQualifier<T, ?> p : getProperties()) {
+                if (p.isWritable()) ((BiConsumer<T, Object>) p.getSetter()).accept(bean, row[i]);
+                i++;
             }
         }
-        return null;
     }
 
     default Comparator<T> getTypeComparator() {
@@ -47,13 +83,29 @@ public interface Qualifier<T> extends Metadata {
         return Comparator.comparing(function, getTypeComparator());
     }
 
+    /** Returns a flat immutable snapshot of this qualifier, see {@link #freeze()}. */
+    default Qualifier<T> materialize() { return new FrozenQualifier<>(this); }
+
+    @Override default Metadata freeze() { return materialize(); }
+
+    @Override default Qualifier<T> with(String key, @Nullable Object value) {
+        return new LayerQualifier<>(this, ExtensionRegistry.ordinal(key), value);
+    }
+
+    @Override default <V> Qualifier<T> with(Extension<V> key, @Nullable V value) { return with(key.getKey(), value); }
+
+    /** Scoped layer of this qualifier, its properties are scoped too, see {@link Metadata#scoped(Function)}. */
+    @Override default Qualifier<T> scoped(Function<? super Metadata, ? extends Metadata> scope) {
+        return new ScopedQualifier<>(this, scope);
+    }
+
     default Qualifier<T> overrideQualifier() { return unchecked(override()); }
 
     default Qualifier<T> overrideQualifier(Consumer<Mutadata> fn) { return unchecked(override(fn)); }
 
     @SuppressWarnings("unchecked")
     static <T> Qualifier<T> unchecked(Metadata q) {
-        return q instanceof Qualifier ? (Qualifier<T>) q : q::data;
+        return q instanceof Qualifier ? (Qualifier<T>) q : q.view(ForwardingQualifier.class, ForwardingQualifier::new);
     }
 
     static <T> Qualifier<T> create(Class<T> type) {
@@ -77,7 +129,108 @@ class HashQualifier<T> extends HashMutadata implements Qualifier<T> {
     HashQualifier(@Nullable Metadata parent) { super(parent); }
 }
 
+class FrozenQualifier<T> extends FrozenMetadata implements Qualifier<T> {
+    FrozenQualifier(Metadata source) { super(source); }
+
+    @Override public Qualifier<T> materialize() { return this; }
+}
+
+class LayerQualifier<T> extends LayerMetadata implements Qualifier<T> {
+    LayerQualifier(Metadata parent, int ordinal, @Nullable Object value) { super(parent, ordinal, value); }
+
+    LayerQualifier(Metadata parent, int[] ordinals, Object[] values) { super(parent, ordinals, values); }
+
+    @Override LayerMetadata layer(int[] ordinals, Object[] values) {
+        return new LayerQualifier<T>(parent, ordinals, values);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override public Qualifier<T> with(String key, @Nullable Object value) {
+        return (Qualifier<T>) with(ExtensionRegistry.ordinal(key), value);
+    }
+}
+
+class ScopedQualifier<T> extends ScopedMetadata implements Qualifier<T> {
+    private volatile @Nullable Collection<PropertyQualifier<T, ?>> properties;
+
+    ScopedQualifier(Qualifier<T> parent, Function<? super Metadata, ? extends Metadata> scope) { super(parent, scope); }
+
+    @Override public @Nullable Object data(@Nonnull String key) {
+        return CORE_PROPERTIES_KEY.equals(key) ? scopedProperties() : super.data(key);
+    }
+
+    @Override public @Nullable Object data(int ordinal) {
+        return ordinal == CORE_PROPERTIES.getOrdinal() ? scopedProperties() : super.data(ordinal);
+    }
+
+    @Override public void forEach(BiConsumer<String, Object> action) {
+        super.forEach((key, value) -> action.accept(key, CORE_PROPERTIES_KEY.equals(key) ? scopedProperties() : value));
+    }
+
+    private @Nullable Collection<PropertyQualifier<T, ?>> scopedProperties() {
+        Collection<PropertyQualifier<T, ?>> properties = this.properties;
+        if (properties == null) {
+            if (parent.data(CORE_PROPERTIES) == null) return null;
+            List<PropertyQualifier<T, ?>> scoped = new ArrayList<>();
+            for (PropertyQualifier<T, ?> p : Qualifier.<T>unchecked(parent).getProperties()) {
+                scoped.add(p.scoped(scope));
+            }
+            this.properties = properties = PropertyList.copyOf(scoped);
+        }
+        return properties;
+    }
+}
+
+/** Typed view of a metadata, preserving the ordinal lookup and the key enumeration of the source. */
+class ForwardingQualifier<T> implements Qualifier<T> {
+    final Metadata delegate;
+
+    ForwardingQualifier(Metadata delegate) { this.delegate = delegate; }
+
+    @Override public @Nullable Object data(String key) { return delegate.data(key); }
+
+    @Override public @Nullable Object data(int ordinal) { return delegate.data(ordinal); }
+
+    @Override public String[] keys() { return delegate.keys(); }
+
+    @Override public void forEach(BiConsumer<String, Object> action) { delegate.forEach(action); }
+}
+
 final class Defaults {
     static Comparator<?> TO_STRING_COMPARATOR = Comparator.nullsFirst(Comparator.comparing(Object::toString));
     static Comparator<?> NATURAL_COMPARATOR = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    /** Natural order comparator through the unboxed getter of primitive properties, or null if there is none. */
+    @SuppressWarnings("unchecked")
+    static @Nullable <T> Comparator<T> primitiveComparator(Metadata q) {
+        ToIntFunction<T> intGetter = (ToIntFunction<T>) q.data(PropertyQualifier.PROPERTY_INT_GETTER);
+        if (intGetter != null) return Comparator.comparingInt(intGetter);
+        ToLongFunction<T> longGetter = (ToLongFunction<T>) q.data(PropertyQualifier.PROPERTY_LONG_GETTER);
+        if (longGetter != null) return Comparator.comparingLong(longGetter);
+        ToDoubleFunction<T> doubleGetter = (ToDoubleFunction<T>) q.data(PropertyQualifier.PROPERTY_DOUBLE_GETTER);
+        if (doubleGetter != null) return Comparator.comparingDouble(doubleGetter);
+        Predicate<T> booleanGetter = (Predicate<T>) q.data(PropertyQualifier.PROPERTY_BOOLEAN_GETTER);
+        if (booleanGetter != null) return (a, b) -> Boolean.compare(booleanGetter.test(a), booleanGetter.test(b));
+        return null;
+    }
+
+    /**
+     * Ordinal of the boxed accessor an unboxed accessor is derived from, or -1 if the ordinal is not an unboxed
+     * accessor. Override layers replacing the boxed getter (or setter) hide the unboxed ones of their parent, so
+     * primitive fast paths never read an accessor that is stale with respect to the current boxed one.
+     */
+    static int boxedAccessor(int ordinal) {
+        if (ordinal == PropertyQualifier.PROPERTY_INT_GETTER.getOrdinal()
+                || ordinal == PropertyQualifier.PROPERTY_LONG_GETTER.getOrdinal()
+                || ordinal == PropertyQualifier.PROPERTY_DOUBLE_GETTER.getOrdinal()
+                || ordinal == PropertyQualifier.PROPERTY_BOOLEAN_GETTER.getOrdinal()) {
+            return PropertyQualifier.PROPERTY_GETTER.getOrdinal();
+        }
+        if (ordinal == PropertyQualifier.PROPERTY_INT_SETTER.getOrdinal()
+                || ordinal == PropertyQualifier.PROPERTY_LONG_SETTER.getOrdinal()
+                || ordinal == PropertyQualifier.PROPERTY_DOUBLE_SETTER.getOrdinal()) {
+            return PropertyQualifier.PROPERTY_SETTER.getOrdinal();
+        }
+        return -1;
+    }
 }
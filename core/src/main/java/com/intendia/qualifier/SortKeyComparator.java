@@ -0,0 +1,61 @@
+package com.intendia.qualifier;
+
+import java.util.Comparator;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * Comparator computing a sort key once per distinct value and comparing the keys, intended as a cheaper replacement
+ * of {@link Qualifier#toStringComparator()} for non comparable types, selected through the
+ * {@link Qualifier#COMPARABLE_COMPARATOR} extension. Keys are remembered in a bounded lock-free identity cache
+ * (direct-mapped by {@link System#identityHashCode}, colliding values replace each other) so sorting repeated value
+ * objects, like enum-like constants, computes each key once. Values must not change their key while cached.
+ *
+ * <p>Locale aware ordering uses collation keys, e.g.
+ * {@code SortKeyComparator.of(v -> collator.getCollationKey(v.toString()))}. Nulls sort first.
+ */
+public final class SortKeyComparator<T> implements Comparator<T> {
+    private static final int CACHE_SIZE = 1024;
+    private final Function<? super T, ? extends Comparable<?>> key;
+    private final Entry[] cache = new Entry[CACHE_SIZE];
+
+    private SortKeyComparator(Function<? super T, ? extends Comparable<?>> key) { this.key = key; }
+
+    /** Orders by the cached {@link Object#toString()} of the values, same order as the to string comparator. */
+    public static <T> SortKeyComparator<T> toStringKeys() { return new SortKeyComparator<>(Object::toString); }
+
+    /** Orders by the cached key of the values, computed once per value while it stays in the cache. */
+    public static <T, K extends Comparable<? super K>> SortKeyComparator<T> of(Function<? super T, K> key) {
+        return new SortKeyComparator<>(key);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Override public int compare(@Nullable T a, @Nullable T b) {
+        if (a == b) return 0;
+        if (a == null) return -1;
+        if (b == null) return 1;
+        return ((Comparable) key(a)).compareTo(key(b));
+    }
+
+    /** Returns the sort key of the value, from the cache if present. */
+    public Object key(T value) {
+        int i = spread(System.identityHashCode(value)) & (CACHE_SIZE - 1);
+        Entry entry = cache[i];
+        if (entry != null && entry.value == value) return entry.key;
+        Object key = this.key.apply(value);
+        cache[i] = new Entry(value, key); // racy but safe, entries are immutable and a miss just recomputes the key
+        return key;
+    }
+
+    private static int spread(int h) { return h ^ (h >>> 16); }
+
+    private static final class Entry {
+        final Object value;
+        final Object key;
+
+        Entry(Object value, Object key) {
+            this.value = value;
+            this.key = key;
+        }
+    }
+}
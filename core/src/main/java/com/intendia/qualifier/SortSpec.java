@@ -0,0 +1,204 @@
+package com.intendia.qualifier;
+
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_BOOLEAN_GETTER;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_COMPARATOR;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_DOUBLE_GETTER;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_INT_GETTER;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_LONG_GETTER;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import javax.annotation.Nullable;
+
+/**
+ * Immutable multi-property sort order, each property with its direction and null ordering. Direction and null
+ * modifiers apply to the last added property, so {@code SortSpec.by(a).descending().thenBy(b).nullsLast()} sorts by
+ * {@code a} descending and then by {@code b} with nulls at the end.
+ *
+ * <p>The {@link #comparator()} resolves all the accessors once and compares in a single loop: primitive properties
+ * through their unboxed getters, natural ordered types through {@link Comparable#compareTo(Object)} and the rest
+ * through the {@link Qualifier#getTypeComparator() type comparator}, handling nulls itself instead of chaining
+ * {@link Comparator#thenComparing} and null wrappers. Properties with an explicit property comparator compare the
+ * beans through it, but their null values (read through the getter) are still ordered by this spec.
+ */
+public final class SortSpec<T> {
+    private final Key<T>[] keys;
+    private @Nullable Comparator<T> comparator;
+
+    private SortSpec(Key<T>[] keys) { this.keys = keys; }
+
+    public static <T> SortSpec<T> by(PropertyQualifier<T, ?> property) {
+        return new SortSpec<T>(newArray(0)).thenBy(property);
+    }
+
+    public SortSpec<T> thenBy(PropertyQualifier<T, ?> property) {
+        Key<T>[] keys = Arrays.copyOf(this.keys, this.keys.length + 1);
+        keys[this.keys.length] = new Key<>(property, false, false);
+        return new SortSpec<>(keys);
+    }
+
+    public SortSpec<T> ascending() { return last(false, last().nullsLast); }
+
+    public SortSpec<T> descending() { return last(true, last().nullsLast); }
+
+    /** Null values sort before any value, independently of the direction (the default). */
+    public SortSpec<T> nullsFirst() { return last(last().descending, false); }
+
+    /**
+     * Null values sort after any value, independently of the direction.
+     *
+     * @throws IllegalArgumentException if the property is not readable, so its null values cannot be detected
+     */
+    public SortSpec<T> nullsLast() { return last(last().descending, true); }
+
+    public List<PropertyQualifier<T, ?>> getProperties() {
+        List<PropertyQualifier<T, ?>> out = new ArrayList<>(keys.length);
+        for (Key<T> key : keys) out.add(key.property);
+        return Collections.unmodifiableList(out);
+    }
+
+    public boolean isDescending(int index) { return keys[index].descending; }
+
+    public boolean isNullsLast(int index) { return keys[index].nullsLast; }
+
+    /** Returns the fused comparator of this sort order. */
+    public Comparator<T> comparator() {
+        Comparator<T> comparator = this.comparator;
+        if (comparator == null) {
+            Key<T>[] keys = this.keys;
+            this.comparator = comparator = keys.length == 1 ? keys[0]::compare : (a, b) -> {
+                for (Key<T> key : keys) {
+                    int c = key.compare(a, b);
+                    if (c != 0) return c;
+                }
+                return 0;
+            };
+        }
+        return comparator;
+    }
+
+    Key<T>[] keys() { return keys; }
+
+    private Key<T> last() { return keys[keys.length - 1]; }
+
+    private SortSpec<T> last(boolean descending, boolean nullsLast) {
+        Key<T>[] keys = this.keys.clone();
+        keys[keys.length - 1] = new Key<>(last().property, descending, nullsLast);
+        return new SortSpec<>(keys);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Key<T>[] newArray(int size) { return (Key<T>[]) new Key[size]; }
+
+    @Override public boolean equals(Object o) {
+        return this == o || o instanceof SortSpec && Arrays.equals(keys, ((SortSpec<?>) o).keys);
+    }
+
+    @Override public int hashCode() { return Arrays.hashCode(keys); }
+
+    @Override public String toString() {
+        StringBuilder out = new StringBuilder();
+        for (Key<T> key : keys) {
+            if (out.length() > 0) out.append(", ");
+            out.append(key.property.getPath()).append(key.descending ? " desc" : " asc");
+            if (key.nullsLast) out.append(" nulls last");
+        }
+        return out.toString();
+    }
+
+    /** How a sort key is read and compared, primitive kinds are never null. */
+    enum Kind { INT, LONG, DOUBLE, BOOLEAN, NATURAL, TYPE, PROPERTY }
+
+    /** A sort property with all its accessors resolved, shared with the key-extracting sort utilities. */
+    static final class Key<T> {
+        final PropertyQualifier<T, ?> property;
+        final boolean descending;
+        final boolean nullsLast;
+        final Kind kind;
+        final @Nullable ToIntFunction<T> intGetter;
+        final @Nullable ToLongFunction<T> longGetter;
+        final @Nullable ToDoubleFunction<T> doubleGetter;
+        final @Nullable Predicate<T> booleanGetter;
+        final @Nullable Function<T, ?> getter;
+        final Comparator<Object> comparator; // value comparator (bean comparator for PROPERTY), never sees nulls
+        private final int nulls; // result if only the first value is null
+
+        @SuppressWarnings("unchecked")
+        Key(PropertyQualifier<T, ?> property, boolean descending, boolean nullsLast) {
+            this.property = property;
+            this.descending = descending;
+            this.nullsLast = nullsLast;
+            this.nulls = nullsLast ? 1 : -1;
+            boolean explicit = !(property instanceof CompositionPropertyQualifier)
+                    && property.data(PROPERTY_COMPARATOR) != null;
+            boolean natural = property.getTypeComparator() == Defaults.NATURAL_COMPARATOR;
+            this.intGetter = natural ? (ToIntFunction<T>) property.data(PROPERTY_INT_GETTER) : null;
+            this.longGetter = natural ? (ToLongFunction<T>) property.data(PROPERTY_LONG_GETTER) : null;
+            this.doubleGetter = natural ? (ToDoubleFunction<T>) property.data(PROPERTY_DOUBLE_GETTER) : null;
+            this.booleanGetter = natural ? (Predicate<T>) property.data(PROPERTY_BOOLEAN_GETTER) : null;
+            if (explicit || !property.isReadable()) {
+                kind = Kind.PROPERTY;
+                getter = property.isReadable() ? property.getGetter() : null; // only to detect null values
+                comparator = (Comparator<Object>) property.getPropertyComparator();
+                if (getter == null && nullsLast) {
+                    throw new IllegalArgumentException("nulls last requires a readable property: " + property);
+                }
+            } else {
+                getter = property.getGetter();
+                comparator = (Comparator<Object>) property.getTypeComparator();
+                kind = intGetter != null ? Kind.INT : longGetter != null ? Kind.LONG
+                        : doubleGetter != null ? Kind.DOUBLE : booleanGetter != null ? Kind.BOOLEAN
+                        : natural ? Kind.NATURAL : Kind.TYPE;
+            }
+        }
+
+        int compare(T a, T b) {
+            if (descending) { T t = a; a = b; b = t; }
+            switch (kind) {
+                case INT: return Integer.compare(intGetter.applyAsInt(a), intGetter.applyAsInt(b));
+                case LONG: return Long.compare(longGetter.applyAsLong(a), longGetter.applyAsLong(b));
+                case DOUBLE: return Double.compare(doubleGetter.applyAsDouble(a), doubleGetter.applyAsDouble(b));
+                case BOOLEAN: return Boolean.compare(booleanGetter.test(a), booleanGetter.test(b));
+                case PROPERTY: return compareBeans(a, b);
+                default: return compareValues(getter.apply(a), getter.apply(b));
+            }
+        }
+
+        /** Compares two beans of a PROPERTY key, directions are applied by the caller, null values are not. */
+        int compareBeans(T a, T b) {
+            if (getter != null) {
+                Object x = getter.apply(a), y = getter.apply(b);
+                if (x == null || y == null) return compareValues(x, y);
+            }
+            return comparator.compare(a, b);
+        }
+
+        /** Compares two values of this key, directions are applied by the caller, nulls are not. */
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        int compareValues(@Nullable Object a, @Nullable Object b) {
+            if (a == b) return 0;
+            if (a == null) return descending ? -nulls : nulls;
+            if (b == null) return descending ? nulls : -nulls;
+            return kind == Kind.NATURAL ? ((Comparable) a).compareTo(b) : comparator.compare(a, b);
+        }
+
+        @Override public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key<?> that = (Key<?>) o;
+            return descending == that.descending && nullsLast == that.nullsLast && property.equals(that.property);
+        }
+
+        @Override public int hashCode() {
+            return property.hashCode() * 31 + (descending ? 2 : 0) + (nullsLast ? 1 : 0);
+        }
+    }
+}
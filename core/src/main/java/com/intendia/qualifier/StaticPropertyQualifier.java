@@ -0,0 +1,7 @@
+package com.intendia.qualifier;
+
+/** Base class of the processor generated property qualifiers, see {@link StaticQualifier}. */
+public abstract class StaticPropertyQualifier<T, V> extends StaticQualifier<V> implements PropertyQualifier<T, V> {
+
+    protected StaticPropertyQualifier(String... keys) { super(keys); }
+}
@@ -0,0 +1,160 @@
+package com.intendia.qualifier;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * Base class of the processor generated qualifiers. Subclasses declare its extension keys and resolve them in
+ * {@link #data(String)}, this class indexes those values by extension ordinal so {@link #data(int)} is answered with
+ * an array access. Keys not declared by the metamodel are resolved through its {@link #mixins()}. If every mixin is a
+ * static qualifier too, the whole mixin closure is flattened into a single table on first use, so misses (the common
+ * case of optional extensions) are answered without walking the mixin chain.
+ */
+public abstract class StaticQualifier<V> implements Qualifier<V> {
+    private static final Metadata[] NO_MIXINS = new Metadata[0];
+    private static final Object NULL = new Object();
+    private static final Object[] OPEN = new Object[0];
+    private final String[] keys;
+    private volatile @Nullable Object[] slots;
+    private volatile @Nullable Metadata[] mixins;
+    private volatile @Nullable Object[] closure;
+    private volatile @Nullable String[] allKeys;
+    private final ViewCache views = new ViewCache();
+
+    /** @param keys the extension keys resolved by {@link #data(String)} (i.e. the generated case labels) */
+    protected StaticQualifier(String... keys) { this.keys = keys; }
+
+    /** Qualifiers used to resolve the keys not declared by this metamodel. Called lazily, only once. */
+    protected Metadata[] mixins() { return NO_MIXINS; }
+
+    /** Resolves a key not declared by this metamodel, returning the first non-null mixin value. */
+    protected final @Nullable Object mixin(String key) {
+        Object[] closure = closureTable();
+        if (closure != OPEN) {
+            int ordinal = ExtensionRegistry.ordinalOf(key); // keys reachable through the closure are registered
+            return ordinal < 0 ? null : lookup(closure, ordinal);
+        }
+        for (Metadata mixin : mixinsTable()) {
+            Object value = mixin.data(key);
+            if (value != null) return value;
+        }
+        return null;
+    }
+
+    @Override public @Nullable Object data(int ordinal) {
+        Object[] closure = closureTable();
+        if (closure != OPEN) return lookup(closure, ordinal);
+        Object[] slots = slotsTable();
+        Object value = ordinal < slots.length ? slots[ordinal] : null;
+        if (value != null) return value == NULL ? null : value;
+        for (Metadata mixin : mixinsTable()) {
+            value = mixin.data(ordinal);
+            if (value != null) return value;
+        }
+        return null;
+    }
+
+    @Override public <Q> Q view(Class<Q> type, Function<? super Metadata, ? extends Q> factory) {
+        return views.get(type, this, factory);
+    }
+
+    /** Same as {@link #data(int)} but final, so callers holding a prepared ordinal skip the virtual dispatch. */
+    final @Nullable Object resolve(int ordinal) {
+        Object[] closure = this.closure;
+        return closure != null && closure != OPEN ? lookup(closure, ordinal) : data(ordinal);
+    }
+
+    /** Returns the declared keys followed by the mixin ones, cached if the mixins are static too. */
+    @Override public String[] keys() {
+        String[] keys = allKeys;
+        if (keys != null) return keys;
+        keys = this.keys;
+        boolean cacheable = true;
+        for (Metadata mixin : mixinsTable()) {
+            keys = ExtensionRegistry.union(keys, mixin.keys());
+            cacheable &= mixin instanceof FrozenMetadata
+                    || mixin instanceof StaticQualifier && ((StaticQualifier<?>) mixin).allKeys != null;
+        }
+        if (cacheable) allKeys = keys;
+        return keys;
+    }
+
+    @Override public void forEach(BiConsumer<String, Object> action) {
+        Object[] closure = closureTable();
+        if (closure != OPEN) {
+            for (int i = 0; i < closure.length; i++) {
+                if (closure[i] != null && closure[i] != NULL) action.accept(ExtensionRegistry.key(i), closure[i]);
+            }
+            return;
+        }
+        Object[] slots = slotsTable();
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null && slots[i] != NULL) action.accept(ExtensionRegistry.key(i), slots[i]);
+        }
+        Metadata[] mixins = mixinsTable();
+        Set<String> seen = mixins.length > 1 ? new HashSet<>() : null;
+        for (Metadata mixin : mixins) {
+            mixin.forEach((key, value) -> {
+                int ordinal = ExtensionRegistry.ordinalOf(key);
+                if (ordinal >= 0 && ordinal < slots.length && slots[ordinal] != null) return; // declared
+                if (seen == null || seen.add(key)) action.accept(key, value);
+            });
+        }
+    }
+
+    private static @Nullable Object lookup(Object[] table, int ordinal) {
+        Object value = ordinal < table.length ? table[ordinal] : null;
+        return value == NULL ? null : value;
+    }
+
+    /** Declared slots merged with the mixin closure ones, or {@link #OPEN} if some mixin is not static. */
+    private Object[] closureTable() {
+        Object[] closure = this.closure;
+        if (closure == null) {
+            Object[] slots = slotsTable();
+            Metadata[] mixins = mixinsTable();
+            closure = mixins.length == 0 ? slots : slots.clone();
+            for (Metadata mixin : mixins) {
+                if (!(mixin instanceof StaticQualifier)) { closure = OPEN; break; }
+                Object[] inherited = ((StaticQualifier<?>) mixin).closureTable();
+                if (inherited == OPEN) { closure = OPEN; break; }
+                if (inherited.length > closure.length) closure = Arrays.copyOf(closure, inherited.length);
+                for (int i = 0; i < inherited.length; i++) {
+                    // a null declared by a mixin does not hide the next mixins, same as walking the chain
+                    if (closure[i] == null && inherited[i] != NULL) closure[i] = inherited[i];
+                }
+            }
+            this.closure = closure;
+        }
+        return closure;
+    }
+
+    private Metadata[] mixinsTable() {
+        Metadata[] mixins = this.mixins;
+        if (mixins == null) this.mixins = mixins = mixins();
+        return mixins;
+    }
+
+    private Object[] slotsTable() {
+        Object[] slots = this.slots;
+        if (slots == null) {
+            int[] ordinals = new int[keys.length];
+            int size = 0;
+            for (int i = 0; i < keys.length; i++) {
+                ordinals[i] = ExtensionRegistry.ordinal(keys[i]);
+                size = Math.max(size, ordinals[i] + 1);
+            }
+            slots = new Object[size];
+            for (int i = 0; i < keys.length; i++) {
+                Object value = data(keys[i]);
+                slots[ordinals[i]] = value == null ? NULL : value;
+            }
+            this.slots = slots;
+        }
+        return slots;
+    }
+}
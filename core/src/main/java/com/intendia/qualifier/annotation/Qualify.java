@@ -59,6 +59,17 @@ public @interface Qualify {
         String name() default "";
     }
 
+    /**
+     * Declares nested property paths (e.g. {@code "customer.address.city"}) on a {@link Qualify}'ed type. A property
+     * qualifier constant is generated for each path, accessing the leaf through a single null-safe generated method
+     * and inheriting the leaf property metadata.
+     */
+    @Target({ TYPE }) @interface Path {
+
+        /** (Required) The dotted property paths. */
+        String[] value();
+    }
+
     /** Skip static qualifying metamodel generation on the marked type. */
     @Target({ TYPE, METHOD, FIELD }) @interface Skip {}
 }
@@ -1,6 +1,7 @@
 package com.intendia.qualifier;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 import org.junit.Test;
 
@@ -13,4 +14,11 @@ public class ExtensionTest {
     @Test(expected = UnsupportedOperationException.class) public void anonymous_throws_if_try_to_get_the_key() {
         Extension.anonymous().getKey();
     }
+
+    @Test public void named_extensions_with_the_same_key_share_the_ordinal() {
+        Extension<Object> extension = Extension.key("my.extension");
+        assertEquals(extension.getOrdinal(), Extension.key("my.extension").getOrdinal());
+        assertEquals("my.extension", ExtensionRegistry.key(extension.getOrdinal()));
+        assertNotEquals(extension.getOrdinal(), Extension.key("my.other.extension").getOrdinal());
+    }
 }
@@ -0,0 +1,132 @@
+package com.intendia.qualifier;
+
+import static com.intendia.qualifier.Metadata.METADATA_MUTATOR;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.intendia.qualifier.Metadata.Mutadata;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import org.junit.Test;
+
+public class MetadataTest {
+
+    @Test public void mutadata_resolves_by_ordinal_and_by_key() {
+        Extension<String> extension = Extension.key("my.extension");
+        Mutadata parent = Metadata.create().put(extension, "parent");
+        Mutadata child = parent.override();
+        assertEquals("parent", child.data(extension));
+        child.put(extension, "child");
+        assertEquals("child", child.data(extension));
+        assertEquals("child", child.data("my.extension"));
+        child.put(extension, null);
+        assertNull(child.data(extension));
+        child.remove(extension);
+        assertEquals("parent", child.data(extension.getOrdinal()));
+    }
+
+    @Test public void freeze_flattens_the_override_chain_into_an_immutable_snapshot() {
+        Extension<String> a = Extension.key("my.a"), b = Extension.key("my.b");
+        Mutadata parent = Metadata.create().put(a, "parent a").put(b, "parent b");
+        Mutadata child = parent.override().put(b, "child b");
+        Metadata frozen = child.freeze();
+        child.put(a, "child a");
+        assertEquals("parent a", frozen.data(a));
+        assertEquals("child b", frozen.data("my.b"));
+        assertEquals(2, frozen.keys().length);
+        assertSame(frozen, frozen.freeze());
+    }
+
+    @Test public void for_each_visits_every_visible_entry_once() {
+        Extension<String> a = Extension.key("my.a"), b = Extension.key("my.b"), c = Extension.key("my.c");
+        Mutadata parent = Metadata.create().put(a, "parent a").put(b, "parent b").put(c, "parent c");
+        Mutadata child = parent.override().put(b, "child b").put(c, null);
+        Map<String, Object> entries = new HashMap<>();
+        child.forEach((key, value) -> assertNull(entries.put(key, value)));
+        assertEquals(2, entries.size());
+        assertEquals("parent a", entries.get("my.a"));
+        assertEquals("child b", entries.get("my.b"));
+    }
+
+    @Test public void for_each_visits_unregistered_parent_keys() {
+        Metadata parent = new Metadata() {
+            @Override public Object data(String key) { return "my.unregistered".equals(key) ? "value" : null; }
+
+            @Override public void forEach(BiConsumer<String, Object> action) {
+                action.accept("my.unregistered", "value");
+            }
+        };
+        for (Metadata child : new Metadata[] { new HashMutadata(parent), new ArrayMutadata(parent),
+                parent.with("my.registered", "layer") }) {
+            Map<String, Object> entries = new HashMap<>();
+            child.forEach(entries::put);
+            assertEquals("value", entries.get("my.unregistered"));
+        }
+    }
+
+    @Test public void with_returns_immutable_layers_sharing_the_parent() {
+        Extension<String> a = Extension.key("my.a"), b = Extension.key("my.b");
+        Mutadata parent = Metadata.create().put(a, "parent a");
+        Metadata first = parent.with(b, "first b");
+        Metadata second = first.with(a, "second a").with(b, null);
+        assertEquals("parent a", first.data(a));
+        assertEquals("first b", first.data(b));
+        assertEquals("second a", second.data(a));
+        assertNull(second.data(b));
+        parent.put(a, "updated a");
+        assertEquals("updated a", first.data(a));
+        assertNull(first.data(METADATA_MUTATOR));
+    }
+
+    @Test public void mutadata_keeps_its_entries_when_growing_past_the_small_layout() {
+        Mutadata parent = Metadata.create().put("my.parent", "parent");
+        Mutadata child = Metadata.create(parent);
+        for (int i = 0; i < 2 * ArrayMutadata.THRESHOLD; i++) {
+            assertSame(child, child.put("my.key" + i, i));
+            assertSame(child, child.mutate());
+        }
+        for (int i = 0; i < 2 * ArrayMutadata.THRESHOLD; i++) assertEquals(i, child.data("my.key" + i));
+        child.remove("my.key0");
+        assertNull(child.data("my.key0"));
+        assertEquals("parent", child.data("my.parent"));
+        assertEquals(2 * ArrayMutadata.THRESHOLD, child.keys().length);
+    }
+
+    @Test public void keys_are_cached_until_the_entries_change() {
+        Mutadata parent = Metadata.create().put("my.parent", "parent");
+        Mutadata child = parent.override().put("my.child", "child");
+        Metadata layer = child.with("my.layer", "layer");
+        assertSame(child.keys(), child.keys());
+        assertSame(layer.keys(), layer.keys());
+        String[] before = layer.keys();
+        child.put("my.child", "updated");
+        assertSame(before, layer.keys());
+        child.put("my.other", "other");
+        assertEquals(4, layer.keys().length);
+        parent.remove("my.parent");
+        assertEquals(3, layer.keys().length);
+    }
+
+    @Test public void concurrent_mutadata_publishes_consistent_snapshots() throws Exception {
+        Extension<Integer> a = Extension.key("my.a"), b = Extension.key("my.b");
+        Mutadata shared = Metadata.createConcurrent(Metadata.create().put(a, -1));
+        assertEquals(Integer.valueOf(-1), shared.data(a));
+        assertSame(shared, shared.mutate());
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 10_000; i++) shared.put(a, i).put(b, i);
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            Metadata snapshot = shared.freeze();
+            Integer va = snapshot.data(a), vb = snapshot.data(b);
+            if (vb != null) assertTrue(va - vb == 0 || va - vb == 1); // a is always written before b
+        }
+        writer.join();
+        assertEquals(Integer.valueOf(9_999), shared.data(b));
+        shared.remove(a);
+        assertEquals(Integer.valueOf(-1), shared.data(a));
+    }
+}
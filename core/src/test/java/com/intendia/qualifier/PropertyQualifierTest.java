@@ -0,0 +1,69 @@
+package com.intendia.qualifier;
+
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_GETTER;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_NAME;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_SETTER;
+import static com.intendia.qualifier.Qualifier.CORE_TYPE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import org.junit.Test;
+
+public class PropertyQualifierTest {
+    static class Node {
+        Node next;
+        String value;
+    }
+
+    static final PropertyQualifier<Node, Node> next = PropertyQualifier.unchecked(Metadata.create()
+            .put(PROPERTY_NAME, "next").put(CORE_TYPE, Node.class)
+            .put(PROPERTY_GETTER, (Function<Node, Node>) n -> n.next));
+    static final PropertyQualifier<Node, String> value = PropertyQualifier.unchecked(Metadata.create()
+            .put(PROPERTY_NAME, "value").put(CORE_TYPE, String.class)
+            .put(PROPERTY_GETTER, (Function<Node, String>) n -> n.value)
+            .put(PROPERTY_SETTER, (BiConsumer<Node, String>) (n, v) -> n.value = v));
+
+    @Test public void deep_compositions_read_and_write_through_the_whole_path() {
+        PropertyQualifier<Node, String> path = next.compose(next).compose(next.compose(value));
+        assertEquals("next.next.next.value", path.getPath());
+        PropertyQualifier<Node, String> frozen = next.materialize().compose(value.materialize());
+        assertSame(frozen.getPath(), frozen.getPath());
+        assertSame(frozen.getPropertyComparator(), frozen.getPropertyComparator());
+
+        Node root = new Node();
+        root.next = new Node();
+        assertNull(path.getGetter().apply(root));
+        try {
+            path.getSetter().accept(root, "deep");
+            throw new AssertionError("expected missing intermediate failure");
+        } catch (NullPointerException expected) {
+            assertTrue(expected.getMessage().contains(".next required to set composed property"));
+        }
+
+        root.next.next = new Node();
+        root.next.next.next = new Node();
+        path.getSetter().accept(root, "deep");
+        assertEquals("deep", root.next.next.next.value);
+        assertEquals("deep", path.getGetter().apply(root));
+    }
+
+    @Test public void compositions_follow_the_overrides_of_their_segments() {
+        PropertyQualifier<Node, String> label = value.overrideProperty();
+        PropertyQualifier<Node, String> path = next.compose(label);
+        Node root = new Node();
+        root.next = new Node();
+        root.next.value = "value";
+        assertEquals("value", path.getGetter().apply(root));
+
+        label.mutate().put(PROPERTY_GETTER, (Function<Node, String>) n -> "label");
+        label.mutate().put(PROPERTY_SETTER, null);
+        assertEquals("label", path.getGetter().apply(root));
+        assertEquals("label", next.compose(label).getGetter().apply(root));
+        assertFalse(path.isWritable());
+    }
+}
@@ -5,12 +5,16 @@ import java.util.Arrays;
 import java.util.List;
 
 @Qualify(fields = true)
+@Qualify.Path({ "parent.stringValue", "parent.colorValue.name" })
 public class ExampleFields {
+    public ExampleFields parent;
     public String stringValue;
     public List<String> stringListValue;
     public Color colorValue;
     public int[] intArray;
     public Integer[] integerArray;
+    public int intValue;
+    public boolean booleanValue;
 
     public List<Integer> getIntegerList() {
         return Arrays.asList(integerArray);
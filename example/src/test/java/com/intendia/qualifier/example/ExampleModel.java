@@ -19,6 +19,7 @@ import java.util.concurrent.TimeUnit;
         @Entry(key = "extension.valueOf", type = Color.class, value = "red"),
         @Entry(key = "extension.class", type = Class.class, value = "java.lang.String"),
 })
+@Qualify.Path("colorValue.name")
 public interface ExampleModel {
     @ExampleAuto(string = "s", type = ExampleInnerInterface.class, link = Color.class, integer = 1, enumeration = SECONDS, enumerationList = {DAYS, HOURS})
     @ExampleManual(string = "s", type = ExampleInnerInterface.class, integer = 1, enumeration = SECONDS) //
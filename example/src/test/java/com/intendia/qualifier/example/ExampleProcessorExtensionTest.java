@@ -1,8 +1,13 @@
 package com.intendia.qualifier.example;
 
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_GETTER;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_INT_GETTER;
 import static com.intendia.qualifier.example.ExampleModelExampleInner__.ExampleInnerMetadata;
 import static com.intendia.qualifier.example.ExampleModel__.ExampleModelMetadata;
 import static com.intendia.qualifier.example.ExampleModel__.stringListValue;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.DAYS;
 import static java.util.concurrent.TimeUnit.HOURS;
@@ -10,15 +15,40 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import com.intendia.qualifier.Extension;
+import com.intendia.qualifier.IndexedBeans;
+import com.intendia.qualifier.Metadata;
+import com.intendia.qualifier.PreparedExtension;
+import com.intendia.qualifier.PropertyAggregation;
+import com.intendia.qualifier.PropertyFilter;
+import com.intendia.qualifier.PropertyIndex;
+import com.intendia.qualifier.PropertyMask;
 import com.intendia.qualifier.PropertyQualifier;
+import com.intendia.qualifier.PropertySort;
 import com.intendia.qualifier.Qualifier;
+import com.intendia.qualifier.SortKeyComparator;
+import com.intendia.qualifier.SortSpec;
 import com.intendia.qualifier.example.ExampleModel.ExampleInnerInterface;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -74,6 +104,16 @@ public class ExampleProcessorExtensionTest {
         assertArrayEquals(new TimeUnit[] { DAYS, HOURS }, q.getExampleAutoEnumerationListWithDefaults());
     }
 
+    @Test public void auto_qualifier_views_forward_the_keys() {
+        PropertyQualifier<ExampleModel, String> source = ExampleModel__.stringValue;
+        ExampleAutoQualifier q = ExampleAutoQualifier.of(source);
+        assertArrayEquals(source.keys(), q.keys());
+        assertEquals(Integer.valueOf(1), q.getExampleAutoInteger());
+        Metadata frozen = q.freeze();
+        assertEquals(source.keys().length, frozen.keys().length);
+        assertEquals("s", frozen.data(ExampleAutoQualifier.EXAMPLE_AUTO_STRING));
+    }
+
     @Test public void test_works() {
         assertNotNull(ExampleModelMetadata);
         assertNotNull(ExampleInnerMetadata);
@@ -110,6 +150,367 @@ public class ExampleProcessorExtensionTest {
         assertEquals("colorValue.name", requireNonNull(q.getProperty("colorValue.name")).getPath());
     }
 
+    @Test public void property_index_resolves_names_and_ordinals() {
+        Qualifier<ExampleModel> q = ExampleModelMetadata;
+        assertSame(ExampleModel__.stringValue, q.getProperty("stringValue"));
+        assertEquals(null, q.getProperty("missing"));
+        assertEquals(null, q.getProperty("colorValue.missing"));
+        int ordinal = 0;
+        for (PropertyQualifier<ExampleModel, ?> property : q.getProperties()) {
+            assertEquals(ordinal++, property.getPropertyOrdinal());
+        }
+        assertEquals(-1, ExampleModel__.colorValue.compose(Color__.name).getPropertyOrdinal());
+    }
+
+    @Test public void composed_paths_are_canonical() {
+        PropertyQualifier<ExampleModel, ?> path = ExampleModelMetadata.getProperty("colorValue.name");
+        assertSame(path, ExampleModelMetadata.getProperty("colorValue.name"));
+        assertSame(path, ExampleModel__.colorValue.compose(Color__.name));
+        assertEquals(path.hashCode(), ExampleModel__.colorValue.compose("name").hashCode());
+        Assert.assertNotEquals(path, ExampleModel__.colorValue.compose(Color__.name.materialize()));
+        PropertyQualifier<ExampleFields, ?> deep = ExampleFields__.self.getProperty("parent.parent.stringValue");
+        assertSame(deep, ExampleFields__.self.getProperty("parent.parent.stringValue"));
+    }
+
+    @Test(expected = IllegalArgumentException.class) public void property_paths_must_not_end_with_an_empty_name() {
+        ExampleModelMetadata.getProperty("colorValue.");
+    }
+
+    @Test public void declared_paths_generate_direct_accessors() {
+        PropertyQualifier<ExampleFields, String> path = ExampleFields__.parentStringValue;
+        assertEquals("parent.stringValue", path.getPath());
+        assertEquals("stringValue", path.getName());
+        assertEquals(String.class, path.getType());
+        assertEquals(-1, path.getPropertyOrdinal());
+
+        ExampleFields bean = new ExampleFields();
+        assertEquals(null, path.getGetter().apply(bean));
+        bean.parent = new ExampleFields();
+        path.getSetter().accept(bean, "nested");
+        assertEquals("nested", bean.parent.stringValue);
+        assertEquals("nested", path.getGetter().apply(bean));
+
+        bean.parent.colorValue = new Color("red");
+        assertEquals("red", ExampleFields__.parentColorValueName.getGetter().apply(bean));
+        assertTrue(!ExampleFields__.parentColorValueName.isWritable());
+        assertNotNull(path.data(Qualifier.COMPARABLE_COMPARATOR)); // inherited from the leaf metamodel
+        assertSame(ExampleFields__.stringValue.getTypeComparator(), path.getTypeComparator());
+    }
+
+    @Test public void primitive_properties_have_unboxed_accessors() {
+        ExampleFields bean = new ExampleFields();
+        assertNotNull(ExampleFields__.intValue.data(PropertyQualifier.PROPERTY_INT_GETTER));
+        ExampleFields__.intValue.getIntSetter().accept(bean, 42);
+        assertEquals(42, bean.intValue);
+        assertEquals(42, ExampleFields__.intValue.getIntGetter().applyAsInt(bean));
+        assertEquals(42L, ExampleFields__.intValue.getLongGetter().applyAsLong(bean)); // boxed fallback
+        bean.booleanValue = true;
+        assertTrue(ExampleFields__.booleanValue.getBooleanGetter().test(bean));
+        PropertyQualifier<ExampleFields, Integer> nested = ExampleFields__.parent.compose(ExampleFields__.intValue);
+        assertEquals(null, nested.data(PropertyQualifier.PROPERTY_INT_GETTER));
+    }
+
+    @Test public void rows_copy_all_properties_in_ordinal_order() {
+        ExampleFields source = new ExampleFields();
+        source.stringValue = "row";
+        source.intValue = 7;
+        source.integerArray = new Integer[0];
+        Qualifier<ExampleFields> q = ExampleFields__.self;
+        Object[] row = q.readRow(source, new Object[q.getProperties().size()]);
+        assertEquals("row", row[ExampleFields__.stringValue.getPropertyOrdinal()]);
+        assertEquals(7, row[ExampleFields__.intValue.getPropertyOrdinal()]);
+
+        ExampleFields target = new ExampleFields();
+        q.writeRow(target, row);
+        assertEquals("row", target.stringValue);
+        assertEquals(7, target.intValue);
+        assertEquals("row", q.materialize().readRow(source, row)[ExampleFields__.stringValue.getPropertyOrdinal()]);
+    }
+
+    @Test public void property_masks_select_by_ordinal() {
+        Qualifier<ExampleFields> q = ExampleFields__.self;
+        PropertyMask<ExampleFields> text = PropertyMask.of(q, "stringValue", "categoryString");
+        PropertyMask<ExampleFields> numbers = PropertyMask.of(q, ExampleFields__.intValue);
+        PropertyMask<ExampleFields> both = text.union(numbers);
+        assertEquals(3, both.size());
+        assertTrue(both.contains(ExampleFields__.intValue));
+        assertEquals(text, both.difference(numbers));
+        assertTrue(text.intersection(numbers).isEmpty());
+        assertEquals(q.getProperties().size(), PropertyMask.all(q).size());
+        assertEquals(both.complement().size() + 3, q.getProperties().size());
+        assertEquals(Arrays.asList(ExampleFields__.categoryString, ExampleFields__.intValue,
+                ExampleFields__.stringValue), both.toList());
+
+        ExampleFields source = new ExampleFields(), target = new ExampleFields();
+        source.stringValue = "copy";
+        source.intValue = 3;
+        source.colorValue = new Color("red");
+        both.copy(source, target);
+        assertEquals("copy", target.stringValue);
+        assertEquals(3, target.intValue);
+        assertEquals(null, target.colorValue);
+
+        source.integerArray = new Integer[0];
+        Object[] row = q.readRow(source, new Object[q.getProperties().size()]);
+        assertArrayEquals(new Object[] { "copy", 3, "copy" }, both.project(row, new Object[both.size()]));
+    }
+
+    @Test public void primitive_properties_compare_without_boxing() {
+        ExampleFields a = new ExampleFields(), b = new ExampleFields();
+        a.intValue = 2;
+        b.intValue = 10;
+        b.booleanValue = true;
+        Comparator<ExampleFields> byInt = ExampleFields__.intValue.getPropertyComparator();
+        assertTrue(byInt.compare(a, b) < 0);
+        assertTrue(ExampleFields__.booleanValue.getPropertyComparator().compare(a, b) < 0);
+
+        Comparator<Integer> reversed = Comparator.reverseOrder();
+        PropertyQualifier<ExampleFields, Integer> desc = ExampleFields__.intValue
+                .with(Qualifier.COMPARABLE_COMPARATOR, reversed);
+        assertTrue(desc.getPropertyComparator().compare(a, b) > 0);
+    }
+
+    @Test public void overridden_getters_hide_the_unboxed_accessors() {
+        ExampleFields a = new ExampleFields(), b = new ExampleFields();
+        a.intValue = 2;
+        b.intValue = 10;
+        Function<ExampleFields, Integer> negated = t -> -t.intValue;
+        PropertyQualifier<ExampleFields, Integer> layer = ExampleFields__.intValue.with(PROPERTY_GETTER, negated);
+        PropertyQualifier<ExampleFields, Integer> mutated = ExampleFields__.intValue
+                .overrideProperty(m -> m.put(PROPERTY_GETTER, negated));
+        for (PropertyQualifier<ExampleFields, Integer> q : Arrays.asList(layer, mutated)) {
+            assertNull(q.data(PROPERTY_INT_GETTER));
+            assertNull(q.freeze().data(PROPERTY_INT_GETTER));
+            assertEquals(-2, q.getIntGetter().applyAsInt(a));
+            assertTrue(q.getPropertyComparator().compare(a, b) > 0);
+            assertTrue(SortSpec.by(q).comparator().compare(a, b) > 0);
+            assertEquals(Arrays.asList(b, a), PropertySort.top(Arrays.asList(a, b), SortSpec.by(q), 2));
+            assertArrayEquals(new Object[] { -2L }, PropertyAggregation.<ExampleFields>groupBy().max(q)
+                    .apply(Arrays.asList(a, b)).get(emptyList()));
+        }
+
+        Metadata scope = Metadata.create().put(PROPERTY_GETTER, negated);
+        Qualifier<ExampleFields> scoped = ExampleFields__.self
+                .scoped(p -> p == ExampleFields__.intValue ? scope : null);
+        assertFalse(PropertyFilter.compile(scoped, "intValue > 0").test(a));
+        assertTrue(PropertyFilter.compile(ExampleFields__.self, "intValue > 0").test(a));
+    }
+
+    @Test public void sort_specs_fuse_multiple_properties() {
+        SortSpec<ExampleFields> spec = SortSpec.by(ExampleFields__.intValue).descending()
+                .thenBy(ExampleFields__.stringValue).nullsLast();
+        assertEquals("intValue desc, stringValue asc nulls last", spec.toString());
+        assertSame(spec.comparator(), spec.comparator());
+
+        List<ExampleFields> beans = new ArrayList<>();
+        for (String s : new String[] { "1:b", "2:a", "1:null", "1:a" }) {
+            ExampleFields bean = new ExampleFields();
+            bean.intValue = Integer.parseInt(s.substring(0, 1));
+            bean.stringValue = s.endsWith("null") ? null : s.substring(2);
+            beans.add(bean);
+        }
+        beans.sort(spec.comparator());
+        List<String> sorted = new ArrayList<>();
+        for (ExampleFields bean : beans) sorted.add(bean.intValue + ":" + bean.stringValue);
+        assertEquals(Arrays.asList("2:a", "1:a", "1:b", "1:null"), sorted);
+
+        beans.sort(SortSpec.by(ExampleFields__.stringValue).descending().comparator());
+        assertEquals(null, beans.get(0).stringValue);
+        assertEquals("b", beans.get(1).stringValue);
+
+        // explicit comparators are not null safe, null values are ordered by the spec
+        Comparator<ExampleFields> byLength = Comparator.comparing(bean -> bean.stringValue.length());
+        PropertyQualifier<ExampleFields, String> explicit = ExampleFields__.stringValue
+                .with(PropertyQualifier.PROPERTY_COMPARATOR, byLength);
+        beans.get(1).stringValue = "ccc";
+        beans.sort(SortSpec.by(explicit).nullsLast().comparator());
+        assertEquals("ccc", beans.get(2).stringValue);
+        assertEquals(null, beans.get(3).stringValue);
+        PropertySort.sort(beans, SortSpec.by(explicit).descending());
+        assertEquals(null, beans.get(0).stringValue);
+        assertEquals("ccc", beans.get(1).stringValue);
+        PropertySort.sort(beans, SortSpec.by(explicit).descending().nullsLast());
+        assertEquals("ccc", beans.get(0).stringValue);
+        assertEquals(null, beans.get(3).stringValue);
+    }
+
+    @Test(expected = IllegalArgumentException.class) public void nulls_last_requires_readable_properties() {
+        Comparator<ExampleFields> byIdentity = Comparator.comparing(System::identityHashCode);
+        SortSpec.by(ExampleFields__.stringValue.with(PROPERTY_GETTER, null)
+                .with(PropertyQualifier.PROPERTY_COMPARATOR, byIdentity)).nullsLast();
+    }
+
+    @Test public void property_sort_extracts_keys_once() {
+        List<ExampleFields> beans = randomFields(42, 20_000, 100, 1000);
+        for (ExampleFields bean : beans) bean.intValue -= 50; // negative keys too
+        List<SortSpec<ExampleFields>> specs = Arrays.asList(
+                SortSpec.by(ExampleFields__.intValue).descending(),
+                SortSpec.by(ExampleFields__.booleanValue),
+                SortSpec.by(ExampleFields__.stringValue).nullsLast().thenBy(ExampleFields__.intValue),
+                SortSpec.by(ExampleFields__.booleanValue).descending().thenBy(ExampleFields__.stringValue));
+        for (SortSpec<ExampleFields> spec : specs) {
+            List<ExampleFields> expected = new ArrayList<>(beans), actual = new ArrayList<>(beans);
+            expected.sort(spec.comparator());
+            PropertySort.sort(actual, spec);
+            for (int i = 0; i < expected.size(); i++) assertSame(spec.toString(), expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test public void sort_key_comparators_compute_each_key_once() {
+        Collator collator = Collator.getInstance(Locale.ENGLISH);
+        AtomicInteger computed = new AtomicInteger();
+        SortKeyComparator<Color> byName = SortKeyComparator.of(c -> {
+            computed.incrementAndGet();
+            return collator.getCollationKey(c.getName());
+        });
+        Color apple = new Color("apple"), banana = new Color("Banana"), cherry = new Color("cherry");
+        List<ExampleFields> beans = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            ExampleFields bean = new ExampleFields();
+            bean.colorValue = i % 10 == 0 ? null : i % 3 == 0 ? cherry : i % 3 == 1 ? banana : apple;
+            beans.add(bean);
+        }
+        PropertyQualifier<ExampleFields, Color> color = ExampleFields__.colorValue
+                .with(Qualifier.COMPARABLE_COMPARATOR, byName);
+        beans.sort(SortSpec.by(color).nullsLast().comparator());
+        assertEquals(3, computed.get());
+        assertSame(apple, beans.get(0).colorValue);
+        assertSame(cherry, beans.get(26).colorValue);
+        assertEquals(null, beans.get(29).colorValue);
+        assertTrue(byName.compare(banana, apple) > 0);
+        assertTrue(SortKeyComparator.toStringKeys().compare("Banana", "apple") < 0);
+    }
+
+    @Test public void top_selections_match_the_sorted_prefix() {
+        List<ExampleFields> beans = randomFields(7, 50_000, 1000, 100);
+        SortSpec<ExampleFields> spec = SortSpec.by(ExampleFields__.intValue).descending()
+                .thenBy(ExampleFields__.stringValue).nullsLast();
+        List<ExampleFields> sorted = new ArrayList<>(beans);
+        sorted.sort(spec.comparator());
+        for (int k : new int[] { 1, 50, 1000 }) {
+            assertEquals(sorted.subList(0, k), PropertySort.top(beans, spec, k));
+            assertEquals(sorted.subList(0, k), PropertySort.parallelTop(beans, spec, k));
+        }
+        List<ExampleFields> few = beans.subList(0, 10);
+        assertEquals(10, PropertySort.top(few, spec, 50).size());
+        assertTrue(PropertySort.parallelTop(beans, spec, 0).isEmpty());
+    }
+
+    @Test public void property_indexes_follow_changes_through_the_setters() {
+        ExampleFields root = new ExampleFields(), a = new ExampleFields(), b = new ExampleFields();
+        root.stringValue = "root";
+        a.intValue = 1;
+        a.stringValue = "x";
+        b.intValue = 5;
+        b.stringValue = "x";
+        b.parent = root;
+        IndexedBeans<ExampleFields> beans = new IndexedBeans<>(Arrays.asList(root, a, b));
+        PropertyIndex<ExampleFields> byString = beans.hashIndex(ExampleFields__.stringValue);
+        PropertyIndex<ExampleFields> byInt = beans.sortedIndex(ExampleFields__.intValue);
+        PropertyIndex<ExampleFields> byParent = beans.hashIndex(ExampleFields__.parentStringValue);
+        PropertyIndex<ExampleFields> composite = beans
+                .sortedIndex(ExampleFields__.stringValue, ExampleFields__.intValue);
+
+        assertEquals(2, byString.get("x").size());
+        assertEquals(Arrays.asList(root, a), byInt.range(null, false, 5, false));
+        assertEquals(singletonList(b), byInt.range(5, true, 5, true));
+        assertTrue(byInt.range(5, true, 5, false).isEmpty());
+        assertTrue(byInt.range(5, true, 1, true).isEmpty());
+        assertEquals(singleton(b), byParent.get("root"));
+        assertEquals(singleton(a), composite.get("x", 1));
+        assertSame(byInt, beans.findIndex(singletonList(ExampleFields__.intValue), true));
+        assertEquals(null, beans.findIndex(singletonList(ExampleFields__.stringValue), true));
+
+        beans.set(a, ExampleFields__.intValue, 7);
+        beans.set(a, ExampleFields__.parent, root);
+        beans.update(b, bean -> bean.stringValue = "y");
+        assertEquals(singleton(a), byString.get("x"));
+        assertEquals(Arrays.asList(b, a), byInt.range(3, true, null, false));
+        assertEquals(2, byParent.get("root").size());
+        assertEquals(singleton(b), composite.get("y", 5));
+        assertTrue(composite.get("x", 1).isEmpty());
+
+        beans.remove(a);
+        assertTrue(byString.get("x").isEmpty());
+        assertEquals(singleton(b), byParent.get("root"));
+    }
+
+    @Test public void filters_compile_against_the_metamodel() {
+        ExampleFields root = new ExampleFields();
+        root.stringValue = "root";
+        List<ExampleFields> beans = randomFields(3, 1_000, 10, 3);
+        for (int i = 0; i < beans.size(); i++) {
+            ExampleFields bean = beans.get(i);
+            if (bean.stringValue != null) bean.stringValue = "it's " + bean.stringValue;
+            bean.parent = i % 3 == 0 ? null : root;
+        }
+        PropertyFilter<ExampleFields> filter = PropertyFilter.compile(ExampleFields__.self,
+                "intValue >= 7 and (stringValue == 'it''s 1' || !booleanValue) && parent.stringValue != null");
+        Predicate<ExampleFields> expected = b -> b.intValue >= 7 && ("it's 1".equals(b.stringValue) || !b.booleanValue)
+                && b.parent != null && b.parent.stringValue != null;
+        List<ExampleFields> matching = new ArrayList<>();
+        for (ExampleFields bean : beans) {
+            assertEquals(expected.test(bean), filter.test(bean));
+            if (expected.test(bean)) matching.add(bean);
+        }
+        assertTrue(!matching.isEmpty() && filter.getSelectivity() < 0.5);
+
+        IndexedBeans<ExampleFields> indexed = new IndexedBeans<>(beans);
+        assertEquals(matching.size(), filter.select(indexed).size());
+        PropertyIndex<ExampleFields> byInt = indexed.sortedIndex(ExampleFields__.intValue);
+        assertEquals(new HashSet<>(matching), new HashSet<>(filter.select(indexed)));
+        assertEquals(byInt.get(3).size(), PropertyFilter.compile(ExampleFields__.self, "intValue = 3.0")
+                .select(indexed).size());
+        assertTrue(PropertyFilter.compile(ExampleFields__.self, "stringValue = null").test(new ExampleFields()));
+        assertTrue(PropertyFilter.compile(ExampleFields__.self, "intValue < 99999999999999999999").test(root));
+        assertTrue(PropertyFilter.compile(ExampleFields__.self, "intValue > -99999999999999999999").test(root));
+        assertFalse(PropertyFilter.compile(ExampleFields__.self, "intValue = 99999999999999999999").test(root));
+
+        for (String malformed : new String[] { "unknown = 1", "intValue >", "intValue < null", "(intValue = 1" }) {
+            try {
+                PropertyFilter.compile(ExampleFields__.self, malformed);
+                throw new AssertionError("expected malformed filter " + malformed);
+            } catch (IllegalArgumentException expectedFailure) {
+                assertTrue(expectedFailure.getMessage().contains(malformed));
+            }
+        }
+    }
+
+    @Test public void aggregations_group_by_property_tuples() {
+        List<ExampleFields> beans = randomFields(5, 20_000, 100, 7);
+        PropertyAggregation<ExampleFields> aggregation = PropertyAggregation.groupBy(ExampleFields__.booleanValue)
+                .count().sum(ExampleFields__.intValue).min(ExampleFields__.intValue).max(ExampleFields__.intValue)
+                .avg(ExampleFields__.intValue).countDistinct(ExampleFields__.stringValue);
+        assertEquals(Arrays.asList("count()", "sum(intValue)", "min(intValue)", "max(intValue)", "avg(intValue)",
+                "countDistinct(stringValue)"), aggregation.getColumns());
+
+        Map<List<Object>, Object[]> result = aggregation.apply(beans);
+        long count = 0, sum = 0;
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        for (ExampleFields bean : beans) {
+            if (!bean.booleanValue) continue;
+            count++;
+            sum += bean.intValue;
+            min = Math.min(min, bean.intValue);
+            max = Math.max(max, bean.intValue);
+        }
+        assertEquals(2, result.size());
+        assertArrayEquals(new Object[] { count, sum, (long) min, (long) max, (double) sum / count, 7L },
+                result.get(singletonList(true)));
+        Map<List<Object>, Object[]> parallel = aggregation.parallel(beans);
+        assertEquals(result.keySet(), parallel.keySet());
+        for (List<Object> group : result.keySet()) assertArrayEquals(result.get(group), parallel.get(group));
+
+        Map<List<Object>, Object[]> byTuple = PropertyAggregation
+                .groupBy(ExampleFields__.booleanValue, ExampleFields__.stringValue).count().apply(beans);
+        assertTrue(byTuple.containsKey(Arrays.asList(false, null)));
+        assertEquals(16, byTuple.size());
+        Map<List<Object>, Object[]> total = PropertyAggregation.<ExampleFields>groupBy()
+                .max(ExampleFields__.intValue).apply(beans);
+        assertArrayEquals(new Object[] { 99L }, total.get(emptyList()));
+        assertTrue(PropertyAggregation.groupBy(ExampleFields__.intValue).count().apply(emptyList()).isEmpty());
+    }
+
     @Test public void mutators_api_looks_good() {
         PropertyQualifier<ExampleModel, String> q = ExampleModel__.stringValue;
         assertEquals(Integer.valueOf(1), q.data(ExampleAutoQualifier.EXAMPLE_AUTO_INTEGER));
@@ -138,4 +539,106 @@ public class ExampleProcessorExtensionTest {
         assertEquals("mixin", ExampleModel__.stringValue.data("mixin.val"));
         assertEquals("mixin", ExampleModel__.categoryString.data("mixin.val"));
     }
+
+    @Test public void ordinal_lookup_matches_key_lookup() {
+        Extension<String> mixin = Extension.key("mixin.val");
+        assertEquals("mixin", ExampleModel__.stringValue.data(mixin));
+        assertEquals("stringValue", ExampleModel__.stringValue.data(PropertyQualifier.PROPERTY_NAME));
+        assertEquals(Color.class, ExampleModel__.colorValue.data(Qualifier.CORE_TYPE));
+        assertEquals(Integer.valueOf(1), ExampleModelMetadata.data(Extension.<Integer>key("extension.int")));
+        assertEquals(null, ExampleModel__.colorValue.data(mixin));
+    }
+
+    @Test public void materialize_resolves_overrides_and_mixins() {
+        PropertyQualifier<ExampleModel, String> override = ExampleModel__.stringValue.overrideProperty(m -> m
+                .put(ExampleAutoQualifier.EXAMPLE_AUTO_INTEGER, 2));
+        PropertyQualifier<ExampleModel, String> q = override.materialize();
+        assertEquals(Integer.valueOf(2), q.data(ExampleAutoQualifier.EXAMPLE_AUTO_INTEGER));
+        assertEquals("mixin", q.data("mixin.val"));
+        assertEquals("stringValue", q.getName());
+        assertEquals(String.class, q.getType());
+        assertEquals(ExampleModel__.stringValue.getGetter(), q.getGetter());
+        assertEquals("colorValue.name", ExampleModel__.colorValue.compose(Color__.name).materialize().getPath());
+    }
+
+    @Test public void mixin_closure_answers_hits_and_misses() {
+        Extension<String> missing = Extension.key("missing.extension");
+        assertEquals(null, ExampleModel__.stringValue.data(missing));
+        assertEquals(null, ExampleModel__.stringValue.data("never.registered.extension"));
+        assertEquals("mixin", ExampleModel__.categoryString.data(Extension.<String>key("mixin.val")));
+        assertEquals(Color.class, ExampleModel__.colorValue.getType());
+    }
+
+    @Test public void typed_views_are_cached_per_instance() {
+        Metadata generated = ExampleModel__.stringValue, frozen = generated.freeze();
+        assertSame(ExampleAutoQualifier.of(generated), ExampleAutoQualifier.of(generated));
+        assertSame(ExampleAutoQualifier.of(frozen), ExampleAutoQualifier.of(frozen));
+        assertSame(PropertyQualifier.unchecked(frozen), PropertyQualifier.unchecked(frozen));
+        assertEquals("s", ExampleAutoQualifier.of(frozen).getExampleAutoString());
+    }
+
+    @Test public void prepared_extensions_match_regular_lookups() {
+        PreparedExtension<String> prepared = ExampleAutoQualifier.EXAMPLE_AUTO_STRING.prepare();
+        PreparedExtension<String> mixin = Extension.<String>key("mixin.val").prepare();
+        for (PropertyQualifier<ExampleModel, ?> q : ExampleModelMetadata.getProperties()) {
+            assertEquals(q.data(ExampleAutoQualifier.EXAMPLE_AUTO_STRING), prepared.get(q));
+            assertEquals(q.data("mixin.val"), mixin.get(q));
+        }
+        assertEquals("s", prepared.get(ExampleModel__.stringValue));
+        assertEquals("mixin", mixin.get(ExampleModel__.stringValue));
+        assertEquals("other", prepared.get(ExampleModel__.stringValue.with(prepared.getExtension(), "other")));
+        assertEquals("def", prepared.get(ExampleModel__.colorValue, "def"));
+    }
+
+    @Test public void generated_metamodels_enumerate_declared_and_mixin_keys() {
+        PropertyQualifier<ExampleModel, String> q = ExampleModel__.stringValue;
+        assertSame(q.keys(), q.keys());
+        assertTrue(Arrays.asList(q.keys()).contains("mixin.val"));
+        Map<String, Object> entries = new HashMap<>();
+        q.forEach(entries::put);
+        assertEquals("mixin", entries.get("mixin.val"));
+        assertEquals("stringValue", entries.get(PropertyQualifier.PROPERTY_NAME_KEY));
+        assertEquals(q.keys().length, entries.size());
+    }
+
+    @Test public void with_layers_keep_the_property_type() {
+        PropertyQualifier<ExampleModel, String> q = ExampleModel__.stringValue
+                .with(ExampleAutoQualifier.EXAMPLE_AUTO_INTEGER, 5)
+                .with(ExampleAutoQualifier.EXAMPLE_AUTO_STRING, "layer");
+        assertEquals(Integer.valueOf(5), q.data(ExampleAutoQualifier.EXAMPLE_AUTO_INTEGER));
+        assertEquals("layer", q.data(ExampleAutoQualifier.EXAMPLE_AUTO_STRING));
+        assertEquals("stringValue", q.getName());
+        assertEquals("mixin", q.data("mixin.val"));
+    }
+
+    @Test public void scoped_overrides_switch_with_the_request_context() {
+        ThreadLocal<Map<Metadata, Metadata>> request = ThreadLocal.withInitial(HashMap::new);
+        Qualifier<ExampleModel> bean = ExampleModelMetadata.scoped(source -> request.get().get(source));
+        PropertyQualifier<ExampleModel, ?> scoped = requireNonNull(bean.getProperty("stringValue"));
+        assertSame(scoped, bean.getProperty("stringValue"));
+        assertEquals("s", scoped.data(ExampleAutoQualifier.EXAMPLE_AUTO_STRING));
+
+        Metadata overrides = Metadata.create().put(ExampleAutoQualifier.EXAMPLE_AUTO_STRING, "request");
+        request.get().put(ExampleModel__.stringValue, overrides);
+        assertEquals("request", scoped.data(ExampleAutoQualifier.EXAMPLE_AUTO_STRING));
+        assertEquals("stringValue", scoped.getName());
+        assertEquals("mixin", scoped.data("mixin.val"));
+
+        request.remove();
+        assertEquals("s", scoped.data(ExampleAutoQualifier.EXAMPLE_AUTO_STRING));
+    }
+
+    /** Seeded beans with int values below {@code ints} and 10% null string values of numbers below {@code strings}. */
+    private static List<ExampleFields> randomFields(long seed, int size, int ints, int strings) {
+        Random random = new Random(seed);
+        List<ExampleFields> beans = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ExampleFields bean = new ExampleFields();
+            bean.intValue = random.nextInt(ints);
+            bean.booleanValue = random.nextBoolean();
+            bean.stringValue = random.nextInt(10) == 0 ? null : Integer.toString(random.nextInt(strings));
+            beans.add(bean);
+        }
+        return beans;
+    }
 }
@@ -11,8 +11,16 @@ import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.base.Throwables.getCausalChain;
 import static com.google.common.base.Throwables.getStackTraceAsString;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_BOOLEAN_GETTER;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_DOUBLE_GETTER;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_DOUBLE_SETTER;
 import static com.intendia.qualifier.PropertyQualifier.PROPERTY_GETTER;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_INT_GETTER;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_INT_SETTER;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_LONG_GETTER;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_LONG_SETTER;
 import static com.intendia.qualifier.PropertyQualifier.PROPERTY_NAME;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_ORDINAL;
 import static com.intendia.qualifier.PropertyQualifier.PROPERTY_SETTER;
 import static com.intendia.qualifier.Qualifier.COMPARABLE_COMPARATOR;
 import static com.intendia.qualifier.Qualifier.CORE_GENERICS;
@@ -20,6 +28,7 @@ import static com.intendia.qualifier.Qualifier.CORE_TYPE;
 import static com.intendia.qualifier.processor.Metamodel.SELF;
 import static com.squareup.javapoet.MethodSpec.methodBuilder;
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 import static java.util.Arrays.stream;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.unmodifiableCollection;
@@ -47,24 +56,29 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.intendia.qualifier.Extension;
 import com.intendia.qualifier.Metadata;
+import com.intendia.qualifier.PropertyList;
 import com.intendia.qualifier.PropertyQualifier;
 import com.intendia.qualifier.Qualifier;
+import com.intendia.qualifier.StaticPropertyQualifier;
+import com.intendia.qualifier.StaticQualifier;
 import com.intendia.qualifier.annotation.Qualify;
 import com.intendia.qualifier.annotation.Qualify.Auto;
 import com.intendia.qualifier.annotation.Qualify.Link;
 import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.TypeVariableName;
 import com.squareup.javapoet.WildcardTypeName;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.EnumSet;
@@ -79,6 +93,13 @@ import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import javax.annotation.processing.AbstractProcessor;
@@ -130,6 +151,8 @@ public class StaticQualifierMetamodelProcessor extends AbstractProcessor impleme
     private static final String PROPERTIES_FIELD = "INSTANCE";
     private static final String PROPERTIES_HOLDER = "PropertiesLazyHolder";
     public static final String PROPERTIES = PROPERTIES_HOLDER + "." + PROPERTIES_FIELD;
+    private static final String ROW_READER = "readRow";
+    private static final String ROW_WRITER = "writeRow";
     private static Set<Element> processed = new HashSet<>();
 
     private @Nullable List<QualifierProcessorServiceProvider> providers;
@@ -231,14 +254,31 @@ public class StaticQualifierMetamodelProcessor extends AbstractProcessor impleme
                             .build());
                 }
 
-                // static XxQualifier of(Metadata q) { return q instanceof XxQualifier ? (XxQualifier) q : q::data; }
+                // static XxQualifier of(Metadata q) { return q instanceof XxQualifier ? … : cached forwarding view; }
                 String packageName = elements().getPackageOf(element).toString();
                 ClassName qType = ClassName.bestGuess(qName);
+                TypeSpec forwarding = TypeSpec.anonymousClassBuilder("")
+                        .addSuperinterface(qType)
+                        .addMethod(methodBuilder("data").addAnnotation(Override.class).addModifiers(PUBLIC)
+                                .returns(Object.class).addParameter(String.class, "key")
+                                .addStatement("return m.data(key)").build())
+                        .addMethod(methodBuilder("data").addAnnotation(Override.class).addModifiers(PUBLIC)
+                                .returns(Object.class).addParameter(int.class, "ordinal")
+                                .addStatement("return m.data(ordinal)").build())
+                        .addMethod(methodBuilder("keys").addAnnotation(Override.class).addModifiers(PUBLIC)
+                                .returns(String[].class)
+                                .addStatement("return m.keys()").build())
+                        .addMethod(methodBuilder("forEach").addAnnotation(Override.class).addModifiers(PUBLIC)
+                                .addParameter(ParameterizedTypeName.get(BiConsumer.class, String.class, Object.class),
+                                        "action")
+                                .addStatement("m.forEach(action)").build())
+                        .build();
                 qualifier.addMethod(methodBuilder("of")
                         .addModifiers(STATIC, PUBLIC)
                         .returns(qType)
                         .addParameter(Metadata.class, "q")
-                        .addStatement("return q instanceof $1T ? ($1T) q : q::data", qType)
+                        .addStatement("return q instanceof $1T ? ($1T) q : q.view($1T.class, m -> $2L)",
+                                qType, forwarding)
                         .build());
 
                 JavaFile.builder(packageName, qualifier.build()).build()
@@ -327,42 +367,50 @@ public class StaticQualifierMetamodelProcessor extends AbstractProcessor impleme
             // Bean properties
             if (SELF.equals(qualifier.name())) {
                 qualifier.metadata().literal(Qualifier.CORE_PROPERTIES, "$L", PROPERTIES);
+                TypeName rowAccessor = ParameterizedTypeName.get(ClassName.get(BiConsumer.class), beanType,
+                        TypeName.get(Object[].class));
+                qualifier.metadata().literal(Qualifier.CORE_ROW_READER, "($T) $T::$N", rowAccessor, metamodelName,
+                        ROW_READER);
+                qualifier.metadata().literal(Qualifier.CORE_ROW_WRITER, "($T) $T::$N", rowAccessor, metamodelName,
+                        ROW_WRITER);
             }
 
             // Property context
             CodeBlock.Builder entries = CodeBlock.builder();
+            List<String> keys = new ArrayList<>();
 
             // Add extensions
             qualifier.extensions().stream()
                     .filter(p -> !p.extension().isAnonymous())
                     .sorted(Comparator.comparing(o -> o.extension().getKey()))
                     .forEachOrdered(e -> e.valueBlock().ifPresent(block -> {
+                        keys.add(e.extension().getKey());
                         entries.add("case $S: return $L;\n", e.extension().getKey(), block);
                     }));
+            entries.add("default: return mixin(key);\n");
 
-            List<CodeBlock> mixins = qualifier.mixins();
-            if (mixins.size() == 0) entries.add("default: return null;\n");
-            else if (mixins.size() == 1) entries.add("default: return ").add(mixins.get(0)).add(".data(key);\n");
-            else {
-                entries.add("default: Object r = null;$>\n");
-                mixins.forEach(m -> entries.add("if (r == null) r = ").add(m).add(".data(key);\n"));
-                entries.add("return r;$<\n");
-            }
-
-            // PropertyQualifier<Person, Address> address = new PersonAddress();
+            // PropertyQualifier<Person, Address> address = new StaticPropertyQualifier<Person, Address>(keys) {…}
             final ParameterizedTypeName baseType = qualifier.isProperty() ?
                     ParameterizedTypeName.get(ClassName.get(PropertyQualifier.class), beanType, propertyType) :
                     ParameterizedTypeName.get(ClassName.get(Qualifier.class), propertyType);
+            final ParameterizedTypeName staticType = qualifier.isProperty() ?
+                    ParameterizedTypeName.get(ClassName.get(StaticPropertyQualifier.class), beanType, propertyType) :
+                    ParameterizedTypeName.get(ClassName.get(StaticQualifier.class), propertyType);
+            CodeBlock.Builder initializer = CodeBlock.builder()
+                    .add("new $T($L) {$>\n", staticType, keys.stream()
+                            .map(k -> CodeBlock.of("$S", k)).collect(CodeBlock.joining(", ")))
+                    .add("public $T data($T key) {$>\n", Object.class, String.class)
+                    .add("switch(key) {$>\n")
+                    .add(entries.build())
+                    .add("$<}\n")
+                    .add("$<}\n");
+            List<CodeBlock> mixins = qualifier.mixins();
+            if (!mixins.isEmpty()) initializer
+                    .add("\nprotected $T[] mixins() {$>\n", Metadata.class)
+                    .add("return new $T[]{$L};\n", Metadata.class, CodeBlock.join(mixins, ", "))
+                    .add("$<}\n");
             container.addField(FieldSpec.builder(baseType, propertyName, PUBLIC, STATIC, FINAL)
-                    .initializer(CodeBlock.builder()
-                            .add("new $T() {$>\n", baseType)
-                            .add("public $T data($T key) {$>\n", Object.class, String.class)
-                            .add("switch(key) {$>\n")
-                            .add(entries.build())
-                            .add("$<}\n")
-                            .add("$<}\n")
-                            .add("$<}")
-                            .build())
+                    .initializer(initializer.add("$<}").build())
                     .build());
 
             // public final static PersonSelf PersonMetadata = self;
@@ -372,13 +420,19 @@ public class StaticQualifierMetamodelProcessor extends AbstractProcessor impleme
             }
         }
 
+        // Declared nested paths
+        processPaths(container, beanElement, metamodelName, beanHelper, qualifiers);
+
+        // Bulk row accessors
+        processRows(container, beanElement, qualifiers);
+
         // All qualifiers instance
         {
             final TypeName valueType = qualifierType(beanClassName, WILDCARD);
             final TypeName mapType = ParameterizedTypeName.get(ClassName.get(Collection.class), valueType);
             container.addType(TypeSpec.classBuilder(PROPERTIES_HOLDER).addModifiers(PUBLIC, STATIC, FINAL)
                     .addField(FieldSpec.builder(mapType, PROPERTIES_FIELD, PRIVATE, STATIC, FINAL)
-                            .initializer("$[$T.<$T>asList($L)$]", Arrays.class, valueType, qualifiers.stream()
+                            .initializer("$[$T.<$T>of($L)$]", PropertyList.class, beanClassName, qualifiers.stream()
                                     .filter(Metamodel::isProperty)
                                     .map(p -> format("%1$s", toLower(p.name())))
                                     .collect(joining(",\n", "\n", "")))
@@ -390,6 +444,197 @@ public class StaticQualifierMetamodelProcessor extends AbstractProcessor impleme
                 .writeTo(processingEnv.getFiler());
     }
 
+    /** Emits a property qualifier constant and its direct accessors for each {@link Qualify.Path}. */
+    private void processPaths(TypeSpec.Builder container, TypeElement beanElement, ClassName metamodelName,
+            TypeHelper beanHelper, Collection<Metamodel> qualifiers) {
+        Qualify.Path paths = beanElement.getAnnotation(Qualify.Path.class);
+        if (paths == null) return;
+        final ClassName beanType = ClassName.get(beanElement);
+        Map<String, String> constants = Maps.newHashMap(); // constant name -> declaring property or path
+        constants.put(SELF, "self metadata");
+        for (Metamodel property : qualifiers) {
+            if (property.isProperty()) constants.put(toLower(property.name()), "property '" + property.name() + "'");
+        }
+        for (String path : paths.value()) {
+            List<Metamodel> segments = resolvePath(beanElement, path, beanHelper);
+            if (segments == null) continue;
+            Metamodel leaf = segments.get(segments.size() - 1);
+            TypeName leafType = TypeName.get(leaf.propertyType());
+            String name = segments.stream().map(p -> toUpper(p.name())).collect(joining());
+            String clash = constants.putIfAbsent(toLower(name), "path '" + path + "'");
+            if (clash != null) {
+                print(ERROR, "path '" + path + "' constant " + toLower(name) + " clashes with " + clash, beanElement);
+                continue;
+            }
+            String getterName = "get" + name, setterName = "set" + name;
+            boolean writable = isWritable(leaf);
+
+            // static Leaf getAB(Bean bean) { A p0 = bean.getA(); if (p0 == null) return null; return p0.getB(); }
+            MethodSpec.Builder getter = methodBuilder(getterName).addModifiers(PUBLIC, STATIC)
+                    .returns(leafType).addParameter(beanType, "bean");
+            String target = "bean";
+            for (int i = 0; i < segments.size() - 1; i++) {
+                getter.addStatement("$T p$L = $L", TypeName.get(segments.get(i).propertyType()), i,
+                        readAccess(segments.get(i), target));
+                getter.addStatement("if (p$L == null) return null", i);
+                target = "p" + i;
+            }
+            container.addMethod(getter.addStatement("return $L", readAccess(leaf, target)).build());
+
+            // static void setAB(Bean bean, Leaf value) { A p0 = bean.getA(); if (p0 == null) throw …; p0.setB(…); }
+            if (writable) {
+                MethodSpec.Builder setter = methodBuilder(setterName).addModifiers(PUBLIC, STATIC)
+                        .addParameter(beanType, "bean").addParameter(leafType, "value");
+                target = "bean";
+                for (int i = 0; i < segments.size() - 1; i++) {
+                    setter.addStatement("$T p$L = $L", TypeName.get(segments.get(i).propertyType()), i,
+                            readAccess(segments.get(i), target));
+                    setter.addStatement("if (p$L == null) throw new $T($S)", i, NullPointerException.class,
+                            "property " + segments.get(i).name() + " required to set " + path);
+                    target = "p" + i;
+                }
+                container.addMethod(setter.addStatement(writeAccess(leaf, target, CodeBlock.of("value"))).build());
+            }
+
+            CodeBlock.Builder entries = CodeBlock.builder();
+            List<String> keys = new ArrayList<>();
+            keys.add(Qualifier.CORE_TYPE_KEY);
+            entries.add("case $S: return $T.class;\n", Qualifier.CORE_TYPE_KEY,
+                    TypeName.get(types().erasure(leaf.propertyType())));
+            keys.add(PropertyQualifier.PROPERTY_GETTER_KEY);
+            entries.add("case $S: return ($T) $T::$N;\n", PropertyQualifier.PROPERTY_GETTER_KEY,
+                    ParameterizedTypeName.get(ClassName.get(Function.class), beanType, leafType),
+                    metamodelName, getterName);
+            keys.add(PropertyQualifier.PROPERTY_NAME_KEY);
+            entries.add("case $S: return $S;\n", PropertyQualifier.PROPERTY_NAME_KEY, leaf.name());
+            // hides the leaf ordinal and primitive accessors, they do not apply to this bean
+            for (String key : asList(PropertyQualifier.PROPERTY_ORDINAL_KEY,
+                    PropertyQualifier.PROPERTY_INT_GETTER_KEY, PropertyQualifier.PROPERTY_LONG_GETTER_KEY,
+                    PropertyQualifier.PROPERTY_DOUBLE_GETTER_KEY, PropertyQualifier.PROPERTY_BOOLEAN_GETTER_KEY,
+                    PropertyQualifier.PROPERTY_INT_SETTER_KEY, PropertyQualifier.PROPERTY_LONG_SETTER_KEY,
+                    PropertyQualifier.PROPERTY_DOUBLE_SETTER_KEY)) {
+                keys.add(key);
+                entries.add("case $S: return null;\n", key);
+            }
+            keys.add(PropertyQualifier.PROPERTY_PATH_KEY);
+            entries.add("case $S: return $S;\n", PropertyQualifier.PROPERTY_PATH_KEY, path);
+            if (writable) {
+                keys.add(PropertyQualifier.PROPERTY_SETTER_KEY);
+                entries.add("case $S: return ($T) $T::$N;\n", PropertyQualifier.PROPERTY_SETTER_KEY,
+                        ParameterizedTypeName.get(ClassName.get(BiConsumer.class), beanType, leafType),
+                        metamodelName, setterName);
+            } else { // hides the leaf setter too, it may come from the leaf mixins even if the path is read-only
+                keys.add(PropertyQualifier.PROPERTY_SETTER_KEY);
+                entries.add("case $S: return null;\n", PropertyQualifier.PROPERTY_SETTER_KEY);
+            }
+            entries.add("default: return mixin(key);\n");
+
+            CodeBlock.Builder initializer = CodeBlock.builder()
+                    .add("new $T($L) {$>\n",
+                            ParameterizedTypeName.get(ClassName.get(StaticPropertyQualifier.class), beanType, leafType),
+                            keys.stream().map(k -> CodeBlock.of("$S", k)).collect(CodeBlock.joining(", ")))
+                    .add("public $T data($T key) {$>\n", Object.class, String.class)
+                    .add("switch(key) {$>\n")
+                    .add(entries.build())
+                    .add("$<}\n")
+                    .add("$<}\n");
+            // the leaf metamodel provides the rest of the metadata (generics, comparators, custom extensions…)
+            TypeElement leafOwner = leaf.beanElement();
+            if (leafOwner.getAnnotation(Qualify.class) != null && leafOwner.getAnnotation(Qualify.Skip.class) == null) {
+                initializer.add("\nprotected $T[] mixins() {$>\n", Metadata.class)
+                        .add("return new $T[]{$T.$L};\n", Metadata.class, getQualifierName(leafOwner), leaf.name())
+                        .add("$<}\n");
+            }
+            TypeName fieldType = qualifierType(beanType, leafType);
+            container.addField(FieldSpec.builder(fieldType, toLower(name), PUBLIC, STATIC, FINAL)
+                    .initializer(initializer.add("$<}").build())
+                    .build());
+        }
+    }
+
+    /** Resolves each path segment to its readable property, or returns null reporting an error. */
+    private @Nullable List<Metamodel> resolvePath(TypeElement beanElement, String path, TypeHelper beanHelper) {
+        List<Metamodel> segments = new ArrayList<>();
+        TypeElement owner = beanElement;
+        for (String name : Splitter.on('.').split(path)) {
+            Metamodel segment = owner == null ? null : getPropertyDescriptors(owner, beanHelper).stream()
+                    .filter(p -> p.isProperty() && p.name().equals(name)
+                            && (p.getterElement() != null || p.fieldElement() != null))
+                    .findFirst().orElse(null);
+            if (segment == null) {
+                print(ERROR, "invalid path '" + path + "', readable property '" + name + "' not found in "
+                        + (owner == null ? "non declared type" : owner.getQualifiedName()), beanElement);
+                return null;
+            }
+            segments.add(segment);
+            owner = segment.propertyElement();
+        }
+        return segments;
+    }
+
+    private CodeBlock readAccess(Metamodel property, String target) {
+        ExecutableElement getter = property.getterElement();
+        if (getter == null) {
+            return CodeBlock.of("$L.$N", target, requireNonNull(property.fieldElement()).getSimpleName());
+        }
+        if (getter.getParameters().isEmpty()) return CodeBlock.of("$L.$N()", target, getter.getSimpleName());
+        return CodeBlock.of("$T.$N($L)", ClassName.get(MoreElements.asType(getter.getEnclosingElement())),
+                getter.getSimpleName(), target);
+    }
+
+    private CodeBlock writeAccess(Metamodel property, String target, CodeBlock value) {
+        ExecutableElement setter = property.setterElement();
+        if (setter == null) {
+            return CodeBlock.of("$L.$N = $L", target, requireNonNull(property.fieldElement()).getSimpleName(), value);
+        }
+        if (setter.getParameters().size() == 1) {
+            return CodeBlock.of("$L.$N($L)", target, setter.getSimpleName(), value);
+        }
+        return CodeBlock.of("$T.$N($L, $L)", ClassName.get(MoreElements.asType(setter.getEnclosingElement())),
+                setter.getSimpleName(), target, value);
+    }
+
+    private static boolean isReadable(Metamodel property) {
+        return property.getterElement() != null || property.fieldElement() != null;
+    }
+
+    private static boolean isWritable(Metamodel property) {
+        return property.setterElement() != null || property.fieldElement() != null
+                && !property.fieldElement().getModifiers().contains(FINAL);
+    }
+
+    /** Emits straight-line methods copying all the bean properties from/to an array in property ordinal order. */
+    private void processRows(TypeSpec.Builder container, TypeElement beanElement, Collection<Metamodel> qualifiers) {
+        final ClassName beanType = ClassName.get(beanElement);
+        MethodSpec.Builder read = methodBuilder(ROW_READER).addModifiers(PUBLIC, STATIC)
+                .addJavadoc("Copies the readable property values into the row, indexed by property ordinal.\n")
+                .addParameter(beanType, "bean").addParameter(Object[].class, "row");
+        MethodSpec.Builder write = methodBuilder(ROW_WRITER).addModifiers(PUBLIC, STATIC)
+                .addJavadoc("Applies the row values to the writable properties, indexed by property ordinal.\n")
+                .addParameter(beanType, "bean").addParameter(Object[].class, "row");
+        int ordinal = 0; // same order as the bean properties list
+        boolean unchecked = false;
+        for (Metamodel property : qualifiers) {
+            if (!property.isProperty()) continue;
+            if (isReadable(property)) read.addStatement("row[$L] = $L", ordinal, readAccess(property, "bean"));
+            if (isWritable(property)) {
+                TypeName type = TypeName.get(property.propertyType());
+                unchecked |= isGeneric(type);
+                write.addStatement(writeAccess(property, "bean", CodeBlock.of("($T) row[$L]", type, ordinal)));
+            }
+            ordinal++;
+        }
+        if (unchecked) write.addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
+                .addMember("value", "$S", "unchecked").build());
+        container.addMethod(read.build()).addMethod(write.build());
+    }
+
+    /** Whether casting to the type is unchecked, i.e. it has type arguments or variables. */
+    private static boolean isGeneric(TypeName type) {
+        if (type instanceof ArrayTypeName) return isGeneric(((ArrayTypeName) type).componentType);
+        return type instanceof ParameterizedTypeName || type instanceof TypeVariableName;
+    }
+
     private List<QualifierProcessorServiceProvider> getProviders() {
         if (providers == null) {
             print(NOTE, "Loading qualifier processor providers...");
@@ -910,7 +1155,9 @@ public class StaticQualifierMetamodelProcessor extends AbstractProcessor impleme
     static class PropertyProcessor extends QualifierProcessorServiceProvider {
 
         @Override public void processBean(TypeSpec.Builder writer, String beanName, Collection<Metamodel> properties) {
+            int ordinal = 0; // same order as the bean properties list
             for (Metamodel ctx : properties) {
+                if (ctx.isProperty()) ctx.metadata().literal(PROPERTY_ORDINAL, "$L", ordinal++);
                 ClassName beanType = ClassName.get(ctx.beanElement());
                 TypeName propertyType = TypeName.get(ctx.propertyType());
 
@@ -939,6 +1186,62 @@ public class StaticQualifierMetamodelProcessor extends AbstractProcessor impleme
                     else s.add("$T::$N", ClassName.get(setter.getEnclosingElement().asType()), setter.getSimpleName());
                     ctx.metadata().literal(PROPERTY_SETTER, s.build());
                 }
+
+                // Primitive property getter and setter, so numeric reads and writes do not box
+                TypeMirror readType = getter != null ? getter.getReturnType() : fieldReadable ? field.asType() : null;
+                PrimitiveAccessor read = readType == null ? null : PrimitiveAccessor.of(readType.getKind(), true);
+                if (read != null) {
+                    CodeBlock.Builder g = CodeBlock.builder();
+                    g.add("($T) ", ParameterizedTypeName.get(ClassName.get(read.getter), beanType));
+                    if (getter == null) g.add("t -> t.$N", field.getSimpleName());
+                    else if (getter.getParameters().isEmpty()) g.add("$T::$N", beanType, getter.getSimpleName());
+                    else g.add("$T::$N", ClassName.get(getter.getEnclosingElement().asType()), getter.getSimpleName());
+                    ctx.metadata().literal(read.getterKey, g.build());
+                }
+                TypeMirror writeType = setter != null ? Iterables.getLast(setter.getParameters()).asType()
+                        : fieldWritable ? field.asType() : null;
+                PrimitiveAccessor write = writeType == null ? null : PrimitiveAccessor.of(writeType.getKind(), false);
+                if (write != null && write.setter != null) {
+                    CodeBlock.Builder s = CodeBlock.builder();
+                    s.add("($T) ", ParameterizedTypeName.get(ClassName.get(write.setter), beanType));
+                    if (setter == null) s.add("(t, v) -> t.$N = v", field.getSimpleName());
+                    else if (setter.getParameters().size() == 1) s.add("$T::$N", beanType, setter.getSimpleName());
+                    else s.add("$T::$N", ClassName.get(setter.getEnclosingElement().asType()), setter.getSimpleName());
+                    ctx.metadata().literal(write.setterKey, s.build());
+                }
+            }
+        }
+    }
+
+    /** Unboxed accessor extensions by primitive kind; setters only for exact types (no narrowing conversion). */
+    enum PrimitiveAccessor {
+        INT(ToIntFunction.class, PROPERTY_INT_GETTER, ObjIntConsumer.class, PROPERTY_INT_SETTER),
+        LONG(ToLongFunction.class, PROPERTY_LONG_GETTER, ObjLongConsumer.class, PROPERTY_LONG_SETTER),
+        DOUBLE(ToDoubleFunction.class, PROPERTY_DOUBLE_GETTER, ObjDoubleConsumer.class, PROPERTY_DOUBLE_SETTER),
+        BOOLEAN(Predicate.class, PROPERTY_BOOLEAN_GETTER, null, null);
+
+        final Class<?> getter;
+        final Extension<?> getterKey;
+        final @Nullable Class<?> setter;
+        final @Nullable Extension<?> setterKey;
+
+        PrimitiveAccessor(Class<?> getter, Extension<?> getterKey, @Nullable Class<?> setter,
+                @Nullable Extension<?> setterKey) {
+            this.getter = getter;
+            this.getterKey = getterKey;
+            this.setter = setter;
+            this.setterKey = setterKey;
+        }
+
+        static @Nullable PrimitiveAccessor of(TypeKind kind, boolean widening) {
+            switch (kind) {
+                case BYTE: case SHORT: case CHAR: return widening ? INT : null;
+                case INT: return INT;
+                case LONG: return LONG;
+                case FLOAT: return widening ? DOUBLE : null;
+                case DOUBLE: return DOUBLE;
+                case BOOLEAN: return BOOLEAN;
+                default: return null;
             }
         }
     }
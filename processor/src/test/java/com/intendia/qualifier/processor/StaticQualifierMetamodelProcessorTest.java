@@ -1,8 +1,21 @@
 package com.intendia.qualifier.processor;
 
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
 import static com.google.testing.compile.JavaSourcesSubject.assertThat;
+import static com.intendia.qualifier.PropertyQualifier.PROPERTY_SETTER;
+import static javax.tools.StandardLocation.CLASS_OUTPUT;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
+import com.google.common.io.ByteStreams;
+import com.google.testing.compile.Compilation;
 import com.google.testing.compile.JavaFileObjects;
+import com.intendia.qualifier.PropertyQualifier;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
 import javax.tools.JavaFileObject;
 import org.junit.Test;
 
@@ -31,4 +44,74 @@ public class StaticQualifierMetamodelProcessorTest {
                 .processedWith(new StaticQualifierMetamodelProcessor())
                 .compilesWithoutError();
     }
+
+    @Test public void pathConstantsMustNotClash() {
+        JavaFileObject model = JavaFileObjects.forSourceString("Model", "\n"
+                + "import com.intendia.qualifier.annotation.Qualify;\n"
+                + "\n"
+                + "@Qualify @Qualify.Path({ \"child.value\", \"childValue\" }) interface Model {\n"
+                + "    Child getChild();\n"
+                + "\n"
+                + "    String getChildValue();\n"
+                + "}");
+        JavaFileObject child = JavaFileObjects.forSourceString("Child", "\n"
+                + "import com.intendia.qualifier.annotation.Qualify;\n"
+                + "\n"
+                + "@Qualify interface Child {\n"
+                + "    String getValue();\n"
+                + "}");
+        assertThat(model, child)
+                .processedWith(new StaticQualifierMetamodelProcessor())
+                .failsToCompile()
+                .withErrorContaining("path 'child.value' constant childValue clashes with property 'childValue'");
+    }
+
+    @Test public void readOnlyPathsHideTheLeafSetter() throws Exception {
+        JavaFileObject model = JavaFileObjects.forSourceString("Model", "\n"
+                + "import com.intendia.qualifier.annotation.Qualify;\n"
+                + "\n"
+                + "@Qualify @Qualify.Path(\"child.value\") public interface Model {\n"
+                + "    Child getChild();\n"
+                + "}");
+        JavaFileObject child = JavaFileObjects.forSourceString("Child", "\n"
+                + "import com.intendia.qualifier.annotation.Qualify;\n"
+                + "\n"
+                + "@Qualify(mixin = ChildMixin.class) public interface Child {\n"
+                + "    String getValue();\n"
+                + "}");
+        JavaFileObject mixin = JavaFileObjects.forSourceString("ChildMixin", "\n"
+                + "import com.intendia.qualifier.annotation.Qualify;\n"
+                + "\n"
+                + "@Qualify public interface ChildMixin {\n"
+                + "    String getValue();\n"
+                + "\n"
+                + "    void setValue(String value);\n"
+                + "}");
+        Compilation compilation = javac().withProcessors(new StaticQualifierMetamodelProcessor())
+                .compile(model, child, mixin);
+        assertThat(compilation).succeeded();
+
+        ClassLoader loader = new ClassLoader(getClass().getClassLoader()) {
+            @Override protected Class<?> findClass(String name) throws ClassNotFoundException {
+                Optional<JavaFileObject> file = compilation.generatedFile(CLASS_OUTPUT, name + ".class");
+                if (!file.isPresent()) throw new ClassNotFoundException(name);
+                try (InputStream in = file.get().openInputStream()) {
+                    byte[] bytes = ByteStreams.toByteArray(in);
+                    return defineClass(name, bytes, 0, bytes.length);
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+            }
+        };
+        PropertyQualifier<?, ?> leaf = constant(loader, "Child__", "value");
+        assertNotNull(leaf.data(PROPERTY_SETTER)); // carried by the leaf mixin
+        PropertyQualifier<?, ?> path = constant(loader, "Model__", "childValue");
+        assertFalse(path.isWritable());
+        assertNull(path.data(PROPERTY_SETTER));
+    }
+
+    private static PropertyQualifier<?, ?> constant(ClassLoader loader, String metamodel, String name)
+            throws ReflectiveOperationException {
+        return (PropertyQualifier<?, ?>) loader.loadClass(metamodel).getField(name).get(null);
+    }
 }